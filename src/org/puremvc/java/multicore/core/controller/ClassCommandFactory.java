@@ -0,0 +1,76 @@
+/* 
+ PureMVC Java MultiCore Port by Ima OpenSource <opensource@ima.eu>
+ Maintained by Anthony Quinault <anthony.quinault@puremvc.org>
+ PureMVC - Copyright(c) 2006-08 Futurescale, Inc., Some rights reserved. 
+ Your reuse is governed by the Creative Commons Attribution 3.0 License 
+ */
+package org.puremvc.java.multicore.core.controller;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+
+import org.puremvc.java.multicore.interfaces.ICommand;
+import org.puremvc.java.multicore.interfaces.ICommandFactory;
+
+/**
+ * An <code>ICommandFactory</code> creating instances of an
+ * <code>ICommand</code> class through its no-arg constructor.
+ *
+ * <P>
+ * The constructor is looked up once, when the factory is created, and
+ * made accessible so that each instantiation skips the access checks.
+ * </P>
+ */
+final class ClassCommandFactory implements ICommandFactory {
+
+	private final Class<?> commandClass;
+
+	private final Constructor<? extends ICommand> constructor;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param commandClass
+	 *            a class implementing <code>ICommand</code>
+	 * @throws IllegalArgumentException
+	 *             if the class is not an <code>ICommand</code> or has no
+	 *             no-arg constructor
+	 */
+	ClassCommandFactory(Class<?> commandClass) {
+		if (!ICommand.class.isAssignableFrom(commandClass)) {
+			throw new IllegalArgumentException(commandClass.getName() + " is not an ICommand");
+		}
+		try {
+			this.constructor = commandClass.asSubclass(ICommand.class).getDeclaredConstructor();
+		} catch (NoSuchMethodException e) {
+			throw new IllegalArgumentException(commandClass.getName() + " has no no-arg constructor", e);
+		}
+		try {
+			this.constructor.setAccessible(true);
+		} catch (SecurityException e) {
+			// fall back to the checked invocation
+		}
+		this.commandClass = commandClass;
+	}
+
+	/**
+	 * Get the class of the commands this factory creates.
+	 *
+	 * @return the <code>ICommand</code> class
+	 */
+	Class<?> getCommandClass() {
+		return commandClass;
+	}
+
+	public ICommand createCommand() {
+		try {
+			return constructor.newInstance();
+		} catch (InstantiationException e) {
+			throw new RuntimeException("Cannot instantiate " + commandClass.getName(), e);
+		} catch (IllegalAccessException e) {
+			throw new RuntimeException("Cannot instantiate " + commandClass.getName(), e);
+		} catch (InvocationTargetException e) {
+			throw new RuntimeException("Cannot instantiate " + commandClass.getName(), e.getCause());
+		}
+	}
+}
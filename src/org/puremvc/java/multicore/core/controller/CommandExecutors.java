@@ -0,0 +1,64 @@
+/* 
+ PureMVC Java MultiCore Port by Ima OpenSource <opensource@ima.eu>
+ Maintained by Anthony Quinault <anthony.quinault@puremvc.org>
+ PureMVC - Copyright(c) 2006-08 Futurescale, Inc., Some rights reserved. 
+ Your reuse is governed by the Creative Commons Attribution 3.0 License 
+ */
+package org.puremvc.java.multicore.core.controller;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
+
+/**
+ * Factory methods for the <code>Executor</code>s running commands.
+ *
+ * @see org.puremvc.java.multicore.core.controller.Controller Controller
+ */
+public final class CommandExecutors {
+
+	private final static Logger logger = Logger.getLogger(CommandExecutors.class.getName());
+
+	private CommandExecutors() {
+	}
+
+	/**
+	 * Create an <code>ExecutorService</code> starting a new virtual thread
+	 * for each task, when the running JDK supports virtual threads.
+	 *
+	 * <P>
+	 * Virtual threads are cheap to create and release their carrier
+	 * thread while blocked on I/O, so thousands of blocking commands may be
+	 * in flight at once. On older JDKs, a fixed pool of daemon platform
+	 * threads is created instead, and the tasks beyond its size wait in
+	 * its queue.
+	 * </P>
+	 *
+	 * @param maxPlatformThreads
+	 *            the size of the fallback pool
+	 * @return a new <code>ExecutorService</code>, to be shut down by the caller
+	 */
+	public static ExecutorService newThreadPerTaskExecutor(int maxPlatformThreads) {
+		try {
+			Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+			return (ExecutorService) factory.invoke(null);
+		} catch (NoSuchMethodException e) {
+			// virtual threads are not available before Java 21
+		} catch (Exception e) {
+			// e.g. virtual threads still in preview and not enabled
+			logger.fine("Virtual threads unavailable: " + e);
+		}
+		return Executors.newFixedThreadPool(maxPlatformThreads, new ThreadFactory() {
+			private final AtomicInteger count = new AtomicInteger();
+
+			public Thread newThread(Runnable runnable) {
+				Thread thread = new Thread(runnable, "PureMVC-Command-" + count.incrementAndGet());
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+	}
+}
@@ -0,0 +1,111 @@
+/* 
+ PureMVC Java MultiCore Port by Ima OpenSource <opensource@ima.eu>
+ Maintained by Anthony Quinault <anthony.quinault@puremvc.org>
+ PureMVC - Copyright(c) 2006-08 Futurescale, Inc., Some rights reserved. 
+ Your reuse is governed by the Creative Commons Attribution 3.0 License 
+ */
+package org.puremvc.java.multicore.core.controller;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Future;
+
+import org.puremvc.java.multicore.interfaces.INotification;
+
+/**
+ * A bounded cache of the executions of pure commands, keyed by the entry
+ * of the command chain that created them and the name, body and type of
+ * their <code>INotification</code>, evicting the least recently used entry
+ * when full.
+ */
+final class CommandMemo {
+
+	private final Map<Key, Future<Object>> entries;
+
+	CommandMemo(final int capacity) {
+		this.entries = new LinkedHashMap<Key, Future<Object>>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			protected boolean removeEldestEntry(Map.Entry<Key, Future<Object>> eldest) {
+				return size() > capacity;
+			}
+		};
+	}
+
+	static Key keyOf(Object entry, INotification note) {
+		return new Key(entry, note.getName(), note.getBody(), note.getType());
+	}
+
+	/**
+	 * Get the execution for a key.
+	 *
+	 * @return the execution, or <code>null</code> if there is none
+	 */
+	synchronized Future<Object> get(Key key) {
+		return entries.get(key);
+	}
+
+	/**
+	 * Get the execution for a key, or record the given one if there is none.
+	 *
+	 * @return the previous execution, or <code>null</code> if the given
+	 *         one was recorded and must be run
+	 */
+	synchronized Future<Object> putIfAbsent(Key key, Future<Object> execution) {
+		Future<Object> previous = entries.get(key);
+		if (previous == null) {
+			entries.put(key, execution);
+		}
+		return previous;
+	}
+
+	/**
+	 * Forget a failed execution, so the next identical notification runs
+	 * the command again.
+	 */
+	synchronized void remove(Key key, Future<Object> execution) {
+		if (entries.get(key) == execution) {
+			entries.remove(key);
+		}
+	}
+
+	synchronized int size() {
+		return entries.size();
+	}
+
+	static final class Key {
+
+		private final Object entry;
+
+		private final String name;
+
+		private final Object body;
+
+		private final String type;
+
+		private final int hash;
+
+		Key(Object entry, String name, Object body, String type) {
+			this.entry = entry;
+			this.name = name;
+			this.body = body;
+			this.type = type;
+			this.hash = ((System.identityHashCode(entry) * 31 + name.hashCode()) * 31 + (body == null ? 0 : body.hashCode())) * 31
+					+ (type == null ? 0 : type.hashCode());
+		}
+
+		public int hashCode() {
+			return hash;
+		}
+
+		public boolean equals(Object object) {
+			if (!(object instanceof Key)) {
+				return false;
+			}
+			Key other = (Key) object;
+			return hash == other.hash && entry == other.entry && name.equals(other.name)
+					&& (body == null ? other.body == null : body.equals(other.body))
+					&& (type == null ? other.type == null : type.equals(other.type));
+		}
+	}
+}
@@ -6,15 +6,24 @@
  */
 package org.puremvc.java.multicore.core.controller;
 
-import java.lang.reflect.Constructor;
-import java.lang.reflect.InvocationTargetException;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import org.puremvc.java.multicore.core.view.View;
 import org.puremvc.java.multicore.interfaces.*;
+import org.puremvc.java.multicore.patterns.observer.Notification;
+import org.puremvc.java.multicore.patterns.observer.NotificationName;
 import org.puremvc.java.multicore.patterns.observer.Observer;
+import org.puremvc.java.multicore.patterns.observer.ResultNotification;
 
 /**
  * A Multiton <code>IController</code> implementation.
@@ -30,7 +39,8 @@ import org.puremvc.java.multicore.patterns.observer.Observer;
  * the <code>View</code> for each <code>INotification</code>
  * that it has an <code>ICommand</code> mapping for.</LI>
  * <LI> Creating a new instance of the proper <code>ICommand</code>
- * to handle a given <code>INotification</code> when notified by the <code>View</code>.</LI>
+ * to handle a given <code>INotification</code> when notified by the <code>View</code>,
+ * or reusing the one of an <code>IReusableCommand</code>.</LI>
  * <LI> Calling the <code>ICommand</code>'s <code>execute</code>
  * method, passing in the <code>INotification</code>.</LI>
  * </UL>
@@ -55,7 +65,40 @@ public class Controller implements IController {
     /**
 	 * Mapping of Notification names to Command Class references
 	 */
-	protected Map<String, Class> commandMap;
+	protected Map<String, Class<?>> commandMap;
+
+	/**
+	 * Chains of Command factories indexed by Notification name ordinal,
+	 * replaced as a whole on each change
+	 */
+	private volatile ICommandFactory[][] commandTable;
+
+	/**
+	 * Priority of the Observers created for Commands
+	 */
+	protected int commandPriority = 0;
+
+	/**
+	 * Executor running IAsyncCommands, if any, as set by the application
+	 */
+	private volatile Executor commandExecutor = null;
+
+	/**
+	 * Executor running every command while the thread per command mode
+	 * is enabled, or null
+	 */
+	private volatile ExecutorService threadPerCommandExecutor = null;
+
+	/**
+	 * Size of the platform thread pool used by the thread per command
+	 * mode when virtual threads are not available
+	 */
+	protected static final int MAX_COMMAND_THREADS = 64;
+
+	/**
+	 * Executions of pure commands, if memoization is enabled
+	 */
+	private volatile CommandMemo memo = null;
 
 	/**
 	 * Local reference to View
@@ -85,7 +128,8 @@ public class Controller implements IController {
 	protected Controller(String key) {
 		multitonKey = key;
 		instanceMap.put(multitonKey, this);
-		this.commandMap = new HashMap<String, Class>();
+		this.commandMap = new HashMap<String, Class<?>>();
+		this.commandTable = new ICommandFactory[0][];
 		initializeController();
 	}
 
@@ -133,28 +177,289 @@ public class Controller implements IController {
 	 *            an <code>INotification</code>
 	 */
 	public void executeCommand(INotification note) {
-		//No reflexion in GWT
-		//ICommand commandInstance = (ICommand) commandClassRef.newInstance();
-		Class cls =  (Class) this.commandMap.get(note.getName());
-		if(cls!=null){
-            try {
-                Constructor constructor = cls.getConstructor();
-                ICommand commandInstance = (ICommand)constructor.newInstance(new Object[] {});
-                commandInstance.initializeNotifier(multitonKey);
-                if (note.isLoggingEnabled()) {
-                    logger.finer("Executing " + commandInstance.getClass().getSimpleName());
-                }
-                commandInstance.execute(note);
-            } catch (NoSuchMethodException e) {
-                e.printStackTrace();
-            } catch (InstantiationException e) {
-                e.printStackTrace();
-            } catch (IllegalAccessException e) {
-                e.printStackTrace();
-            } catch (InvocationTargetException e) {
-                e.printStackTrace();
+		NotificationName name = null;
+		if (note instanceof Notification) {
+			name = ((Notification) note).getNotificationName();
+		}
+		if (name == null) {
+			name = NotificationName.lookup(note.getName());
+			if (name == null) {
+				return;
+			}
+		}
+		executeCommand(name, note);
+	}
+
+	/**
+	 * If an <code>ICommand</code> has previously been registered to handle
+	 * the given interned <code>INotification</code> name, then it is executed.
+	 *
+	 * <P>
+	 * This is the path taken by the <code>Observer</code> registered for
+	 * each command, so the <code>ICommand</code> is resolved by the
+	 * ordinal of its name without hashing.
+	 * </P>
+	 *
+	 * @param name
+	 *            the interned name the <code>ICommand</code> was registered for
+	 * @param note
+	 *            an <code>INotification</code>
+	 */
+	public void executeCommand(NotificationName name, INotification note) {
+		// the constructors were resolved by registerCommand and addCommand
+		ICommandFactory[][] table = this.commandTable;
+		ICommandFactory[] chain = name.getOrdinal() < table.length ? table[name.getOrdinal()] : null;
+		if (chain != null) {
+			for (int i = 0; i < chain.length; i++) {
+				executeCommand(chain[i], note);
+			}
+		}
+	}
+
+	private void executeCommand(ICommandFactory factory, INotification note) {
+        CommandMemo executions = this.memo;
+        CommandMemo.Key key = null;
+        // a pure command already executed for an identical notification
+        // is not even instantiated
+        if (executions != null && isPure(factory)) {
+            key = CommandMemo.keyOf(factory, note);
+            if (reuse(executions.get(key), note)) {
+                return;
             }
         }
+        ICommand commandInstance = factory.createCommand();
+        // reusable commands were initialized by registerCommand
+        if (!(factory instanceof SharedCommandFactory)) {
+            commandInstance.initializeNotifier(multitonKey);
+        }
+        if (note.isLoggingEnabled()) {
+            logger.finer("Executing " + commandInstance.getClass().getSimpleName());
+        }
+        Executor executor = getExecutor(commandInstance);
+        if (executions != null && commandInstance instanceof IPureCommand) {
+            executeMemoized(executions, key != null ? key : CommandMemo.keyOf(factory, note), commandInstance, note, executor);
+        } else if (executor != null || commandInstance instanceof IAsyncCommand) {
+            execute(newCommandTask(commandInstance, note, null, null, executor != null), note, executor);
+        } else {
+            commandInstance.execute(note);
+        }
+	}
+
+	/**
+	 * Get the <code>Executor</code> a command runs on, picked when it is
+	 * executed: the thread per command one while that mode is enabled,
+	 * otherwise the command <code>Executor</code> for an
+	 * <code>IAsyncCommand</code>.
+	 *
+	 * @return the <code>Executor</code>, or <code>null</code> to run the
+	 *         command on the notifying thread
+	 */
+	private Executor getExecutor(ICommand command) {
+		Executor executor = this.threadPerCommandExecutor;
+		if (executor == null && command instanceof IAsyncCommand) {
+			executor = this.commandExecutor;
+		}
+		return executor;
+	}
+
+	/**
+	 * Execute a pure command unless it has already been executed for an
+	 * identical notification, in which case the sender of a
+	 * <code>ResultNotification</code> gets the earlier execution.
+	 */
+	private void executeMemoized(CommandMemo executions, CommandMemo.Key key, ICommand command, INotification note, Executor executor) {
+		FutureTask<Object> task = newCommandTask(command, note, executions, key, executor != null);
+		if (!reuse(executions.putIfAbsent(key, task), note)) {
+			execute(task, note, executor);
+		}
+	}
+
+	/**
+	 * Hand an earlier execution of a pure command to the sender of a
+	 * <code>ResultNotification</code>.
+	 *
+	 * @return whether there was an earlier execution
+	 */
+	private static boolean reuse(Future<Object> previous, INotification note) {
+		if (previous == null) {
+			return false;
+		}
+		if (note instanceof ResultNotification) {
+			((ResultNotification) note).setResult(previous);
+		}
+		return true;
+	}
+
+	/**
+	 * Check whether a factory is known to create <code>IPureCommand</code>s
+	 * without calling it.
+	 */
+	private static boolean isPure(ICommandFactory factory) {
+		if (factory instanceof ClassCommandFactory) {
+			return IPureCommand.class.isAssignableFrom(((ClassCommandFactory) factory).getCommandClass());
+		}
+		return factory instanceof SharedCommandFactory
+				&& ((SharedCommandFactory) factory).createCommand() instanceof IPureCommand;
+	}
+
+	/**
+	 * Wrap a command execution, forgetting the memoized execution that
+	 * failed, if any, and logging failures nobody else will see.
+	 */
+	private FutureTask<Object> newCommandTask(final ICommand command, final INotification note,
+			final CommandMemo executions, final CommandMemo.Key key, final boolean logFailures) {
+		return new FutureTask<Object>(new Callable<Object>() {
+			public Object call() throws Exception {
+				if (command instanceof IAsyncCommand) {
+					return ((IAsyncCommand) command).call(note);
+				}
+				command.execute(note);
+				return null;
+			}
+		}) {
+			protected void setException(Throwable t) {
+				if (executions != null) {
+					executions.remove(key, this);
+				}
+				if (logFailures) {
+					logger.log(Level.SEVERE, command.getClass().getSimpleName() + " failed on " + note.getName(), t);
+				}
+				super.setException(t);
+			}
+		};
+	}
+
+	/**
+	 * Run a command on an <code>Executor</code>, or else on the calling
+	 * thread, handing its <code>Future</code> to the sender of a
+	 * <code>ResultNotification</code>.
+	 *
+	 * <P>
+	 * A command run on the calling thread throws its exception to the
+	 * sender, as if it had been executed directly. A command the
+	 * <code>Executor</code> rejects, because it was shut down meanwhile,
+	 * runs on the calling thread, its failure being logged.
+	 * </P>
+	 */
+	private void execute(FutureTask<Object> task, INotification note, Executor executor) {
+		if (note instanceof ResultNotification) {
+			((ResultNotification) note).setResult(task);
+		}
+		if (executor != null) {
+			try {
+				executor.execute(task);
+			} catch (RejectedExecutionException e) {
+				task.run();
+			}
+			return;
+		}
+		task.run();
+		try {
+			task.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof RuntimeException) {
+				throw (RuntimeException) cause;
+			}
+			if (cause instanceof Error) {
+				throw (Error) cause;
+			}
+			throw new RuntimeException(cause);
+		}
+	}
+
+	/**
+	 * Enable or disable the memoization of <code>IPureCommand</code>s.
+	 *
+	 * <P>
+	 * While enabled, each pure command of a chain is executed once for each
+	 * distinct name, body and type of <code>INotification</code>, and skipped for
+	 * identical ones while its execution is remembered. At most
+	 * <code>capacity</code> executions are remembered, the least recently
+	 * used being forgotten first, and failed executions are forgotten at
+	 * once. Changing the capacity forgets every execution. A command
+	 * registered by class, or as an <code>IReusableCommand</code>, is not
+	 * instantiated when its execution is remembered. The exceptions of a
+	 * pure command run on the notifying thread reach the sender, as
+	 * without memoization.
+	 * </P>
+	 *
+	 * @param capacity
+	 *            the number of executions to remember, or <code>0</code>
+	 *            to disable memoization
+	 */
+	public void setMemoization(int capacity) {
+		if (capacity < 0) {
+			throw new IllegalArgumentException("Capacity must not be negative: " + capacity);
+		}
+		this.memo = capacity == 0 ? null : new CommandMemo(capacity);
+	}
+
+	/**
+	 * Set the <code>Executor</code> running <code>IAsyncCommand</code>s.
+	 *
+	 * <P>
+	 * With an <code>Executor</code>, an <code>IAsyncCommand</code> is
+	 * submitted to it and the notifying thread moves on to the next
+	 * observer at once; its failures are logged, and reported through the
+	 * <code>Future</code> of a <code>ResultNotification</code>. Without
+	 * one, the default, it runs on the notifying thread like any other
+	 * <code>ICommand</code>, and its exceptions reach the sender, wrapped
+	 * in a <code>RuntimeException</code> if they are checked. Other
+	 * commands are not affected.
+	 * </P>
+	 *
+	 * <P>
+	 * While the thread per command mode is enabled, its own
+	 * <code>Executor</code> runs every command instead; this one is used
+	 * again once that mode is disabled.
+	 * </P>
+	 *
+	 * @param executor
+	 *            the <code>Executor</code>, or <code>null</code> to run
+	 *            <code>IAsyncCommand</code>s on the notifying thread
+	 */
+	public void setCommandExecutor(Executor executor) {
+		this.commandExecutor = executor;
+	}
+
+	/**
+	 * Enable or disable the thread per command mode.
+	 *
+	 * <P>
+	 * While enabled, every <code>ICommand</code>, not only the
+	 * <code>IAsyncCommand</code>s, is executed on a thread of its own, a
+	 * virtual thread when the running JDK supports them, and the notifying
+	 * thread moves on at once. This suits Cores whose commands block on
+	 * I/O. Without virtual threads, the commands run on a pool of
+	 * <code>MAX_COMMAND_THREADS</code> platform threads.
+	 * </P>
+	 *
+	 * <P>
+	 * Commands registered for the same notification may then run
+	 * concurrently and complete in any order. The mode uses an
+	 * <code>Executor</code> of its own, leaving the one set with
+	 * <code>setCommandExecutor</code> in place: disabling the mode shuts its
+	 * <code>Executor</code> down once the running commands complete, and
+	 * goes back to running <code>IAsyncCommand</code>s on the command
+	 * <code>Executor</code>, if any, and other commands on the notifying
+	 * thread. A command sent while the mode is being disabled runs on the
+	 * notifying thread.
+	 * </P>
+	 *
+	 * @param enabled
+	 *            whether each command runs on a thread of its own
+	 */
+	public synchronized void setThreadPerCommand(boolean enabled) {
+		if (enabled && this.threadPerCommandExecutor == null) {
+			this.threadPerCommandExecutor = CommandExecutors.newThreadPerTaskExecutor(MAX_COMMAND_THREADS);
+		} else if (!enabled && this.threadPerCommandExecutor != null) {
+			ExecutorService executor = this.threadPerCommandExecutor;
+			this.threadPerCommandExecutor = null;
+			executor.shutdown();
+		}
 	}
 
 	/**
@@ -170,18 +475,197 @@ public class Controller implements IController {
 	 * The Observer for the new ICommand is only created if this the
 	 * first time an ICommand has been regisered for this Notification name.
 	 *
+	 * <P>
+	 * The no-arg constructor of the class is resolved here once, so
+	 * executing the <code>ICommand</code> only instantiates it. A class
+	 * implementing <code>IReusableCommand</code> is instantiated and
+	 * initialized here, and that instance executes every notification.
+	 * </P>
+	 *
 	 * @param noteName
 	 *            the name of the <code>INotification</code>
 	 * @param command
 	 *            an instance of <code>ICommand</code>
+	 * @throws IllegalArgumentException
+	 *             if the class is not an <code>ICommand</code> with a no-arg
+	 *             constructor
+	 */
+	public void registerCommand(String noteName, Class<?> command) {
+		registerCommandFactory(noteName, createFactory(command), command, false);
+	}
+
+	/**
+	 * Register an <code>ICommandFactory</code> as the handler for a
+	 * particular <code>INotification</code>.
+	 *
+	 * <P>
+	 * The factory is called for each <code>INotification</code> with this
+	 * name, and the <code>ICommand</code> it returns is initialized and
+	 * executed, without any reflection:
+	 * </P>
+	 *
+	 * <listing>
+	 *		registerCommand(STARTUP, new ICommandFactory() {
+	 *			public ICommand createCommand() {
+	 *				return new StartupCommand(config);
+	 *			}
+	 *		});
+	 * </listing>
+	 *
+	 * @param noteName
+	 *            the name of the <code>INotification</code>
+	 * @param factory
+	 *            the <code>ICommandFactory</code> creating the <code>ICommand</code>s
+	 */
+	public void registerCommand(String noteName, ICommandFactory factory) {
+		registerCommandFactory(noteName, factory, factory.getClass(), false);
+	}
+
+	/**
+	 * Register an <code>IFunction</code> as the handler for a particular
+	 * <code>INotification</code>.
+	 *
+	 * <P>
+	 * The <code>IFunction</code> is called directly for each
+	 * <code>INotification</code> with this name, as the
+	 * <code>execute</code> method of an <code>IReusableCommand</code>.
+	 * </P>
+	 *
+	 * @param noteName
+	 *            the name of the <code>INotification</code>
+	 * @param function
+	 *            the <code>IFunction</code> handling the <code>INotification</code>
+	 */
+	public void registerCommand(String noteName, IFunction function) {
+		registerCommandFactory(noteName, share(new FunctionCommand(function)), FunctionCommand.class, false);
+	}
+
+	/**
+	 * Add an <code>ICommand</code> class to the chain of commands handling
+	 * a particular <code>INotification</code>.
+	 *
+	 * <P>
+	 * Unlike <code>registerCommand</code>, which replaces the commands
+	 * registered for the name, <code>addCommand</code> appends to them:
+	 * each <code>INotification</code> executes the whole chain in the order
+	 * the commands were added, from an array built here, without the
+	 * allocations of a <code>MacroCommand</code>. When several of them are
+	 * <code>IAsyncCommand</code>s, the sender of a
+	 * <code>ResultNotification</code> gets the result of the last one.
+	 * </P>
+	 *
+	 * @param noteName
+	 *            the name of the <code>INotification</code>
+	 * @param command
+	 *            the Class of the <code>ICommand</code>
+	 * @throws IllegalArgumentException
+	 *             if the class is not an <code>ICommand</code> with a no-arg
+	 *             constructor
+	 */
+	public void addCommand(String noteName, Class<?> command) {
+		registerCommandFactory(noteName, createFactory(command), command, true);
+	}
+
+	/**
+	 * Add an <code>ICommandFactory</code> to the chain of commands handling
+	 * a particular <code>INotification</code>.
+	 *
+	 * @param noteName
+	 *            the name of the <code>INotification</code>
+	 * @param factory
+	 *            the <code>ICommandFactory</code> creating the <code>ICommand</code>s
 	 */
-	public void registerCommand(String noteName, Class command) {
+	public void addCommand(String noteName, ICommandFactory factory) {
+		registerCommandFactory(noteName, factory, factory.getClass(), true);
+	}
+
+	/**
+	 * Add an <code>IFunction</code> to the chain of commands handling a
+	 * particular <code>INotification</code>.
+	 *
+	 * @param noteName
+	 *            the name of the <code>INotification</code>
+	 * @param function
+	 *            the <code>IFunction</code> handling the <code>INotification</code>
+	 */
+	public void addCommand(String noteName, IFunction function) {
+		registerCommandFactory(noteName, share(new FunctionCommand(function)), FunctionCommand.class, true);
+	}
+
+	private ICommandFactory createFactory(Class<?> command) {
+		ICommandFactory factory = new ClassCommandFactory(command);
+		if (IReusableCommand.class.isAssignableFrom(command)) {
+			factory = share(factory.createCommand());
+		}
+		return factory;
+	}
+
+	private ICommandFactory share(ICommand command) {
+		command.initializeNotifier(multitonKey);
+		return new SharedCommandFactory(command);
+	}
+
+	private void registerCommandFactory(String noteName, ICommandFactory factory, Class<?> command, boolean append) {
+		final NotificationName name = NotificationName.intern(noteName);
+		synchronized (this) {
+			ICommandFactory[] chain = append ? getCommandSlot(name.getOrdinal()) : null;
+			if (chain == null) {
+				chain = new ICommandFactory[] { factory };
+			} else {
+				ICommandFactory[] longer = new ICommandFactory[chain.length + 1];
+				System.arraycopy(chain, 0, longer, 0, chain.length);
+				longer[chain.length] = factory;
+				chain = longer;
+			}
+			setCommandSlot(name.getOrdinal(), chain);
+		}
 		if (null != this.commandMap.put(noteName, command)) return;
 		this.view.registerObserver(noteName, new Observer(new IFunction() {
 			public void onNotify(INotification note) {
-				executeCommand(note);
+				executeCommand(name, note);
 			}
-		}, this ) );
+		}, this ), this.commandPriority );
+	}
+
+	/**
+	 * Set the priority of the <code>Observers</code> created by
+	 * <code>registerCommand</code> from now on.
+	 *
+	 * <P>
+	 * Commands are notified before the mediators of the same
+	 * <code>INotification</code> with a lower priority; the default
+	 * priority is <code>0</code>.
+	 * </P>
+	 *
+	 * @param priority
+	 *            the priority of the <code>ICommand</code> observers
+	 */
+	public void setCommandPriority(int priority) {
+		this.commandPriority = priority;
+	}
+
+	private ICommandFactory[] getCommandSlot(int ordinal) {
+		ICommandFactory[][] table = this.commandTable;
+		return ordinal < table.length ? table[ordinal] : null;
+	}
+
+	/**
+	 * Publish a copy of the command table with a new chain for a
+	 * <code>Notification</code> name ordinal.
+	 *
+	 * <P>
+	 * The table is never modified once published, so
+	 * <code>executeCommand</code> reads it from any thread without locking
+	 * and sees the chains complete. Callers are serialized on the
+	 * <code>Controller</code>.
+	 * </P>
+	 */
+	private void setCommandSlot(int ordinal, ICommandFactory[] chain) {
+		ICommandFactory[][] table = this.commandTable;
+		ICommandFactory[][] copy = new ICommandFactory[Math.max(ordinal + 1, table.length)][];
+		System.arraycopy(table, 0, copy, 0, table.length);
+		copy[ordinal] = chain;
+		this.commandTable = copy;
 	}
 
 	/**
@@ -198,6 +682,9 @@ public class Controller implements IController {
 			// remove the observer
 			view.removeObserver(noteName, this);
 			this.commandMap.remove(noteName);
+			synchronized (this) {
+				setCommandSlot(NotificationName.intern(noteName).getOrdinal(), null);
+			}
 		}
 	}
 
@@ -207,7 +694,10 @@ public class Controller implements IController {
 	 * @param multitonKey of IController instance to remove
 	 */
 	public synchronized static void removeController(String key) {
-		instanceMap.remove(key);
+		Controller controller = instanceMap.remove(key);
+		if (controller != null) {
+			controller.setThreadPerCommand(false);
+		}
 	}
 
 	/**
@@ -0,0 +1,32 @@
+/* 
+ PureMVC Java MultiCore Port by Ima OpenSource <opensource@ima.eu>
+ Maintained by Anthony Quinault <anthony.quinault@puremvc.org>
+ PureMVC - Copyright(c) 2006-08 Futurescale, Inc., Some rights reserved. 
+ Your reuse is governed by the Creative Commons Attribution 3.0 License 
+ */
+package org.puremvc.java.multicore.core.controller;
+
+import org.puremvc.java.multicore.interfaces.IFunction;
+import org.puremvc.java.multicore.interfaces.INotification;
+import org.puremvc.java.multicore.interfaces.IReusableCommand;
+import org.puremvc.java.multicore.patterns.observer.Notifier;
+
+/**
+ * An <code>IReusableCommand</code> calling an <code>IFunction</code>.
+ */
+final class FunctionCommand extends Notifier implements IReusableCommand {
+
+	private final IFunction function;
+
+	FunctionCommand(IFunction function) {
+		this.function = function;
+	}
+
+	public void execute(INotification note) {
+		function.onNotify(note);
+	}
+
+	public String toString() {
+		return "FunctionCommand: " + function;
+	}
+}
@@ -0,0 +1,33 @@
+/* 
+ PureMVC Java MultiCore Port by Ima OpenSource <opensource@ima.eu>
+ Maintained by Anthony Quinault <anthony.quinault@puremvc.org>
+ PureMVC - Copyright(c) 2006-08 Futurescale, Inc., Some rights reserved. 
+ Your reuse is governed by the Creative Commons Attribution 3.0 License 
+ */
+package org.puremvc.java.multicore.core.controller;
+
+import org.puremvc.java.multicore.interfaces.ICommand;
+import org.puremvc.java.multicore.interfaces.ICommandFactory;
+
+/**
+ * An <code>ICommandFactory</code> returning the same initialized
+ * <code>IReusableCommand</code> every time.
+ */
+final class SharedCommandFactory implements ICommandFactory {
+
+	private final ICommand command;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param command
+	 *            the command, already initialized for its Core
+	 */
+	SharedCommandFactory(ICommand command) {
+		this.command = command;
+	}
+
+	public ICommand createCommand() {
+		return this.command;
+	}
+}
@@ -0,0 +1,106 @@
+/* 
+ PureMVC Java MultiCore Port by Ima OpenSource <opensource@ima.eu>
+ Maintained by Anthony Quinault <anthony.quinault@puremvc.org>
+ PureMVC - Copyright(c) 2006-08 Futurescale, Inc., Some rights reserved. 
+ Your reuse is governed by the Creative Commons Attribution 3.0 License 
+ */
+package org.puremvc.java.multicore.core.model;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.puremvc.java.multicore.interfaces.IProxy;
+import org.puremvc.java.multicore.interfaces.IProxyFactory;
+
+/**
+ * A Multiton <code>IModel</code> implementation that may be used from
+ * several threads at once.
+ *
+ * <P>
+ * <code>retrieveProxy</code> and <code>hasProxy</code> take no locks:
+ * they read concurrent maps. Registering and removing proxies and proxy
+ * factories is serialized on the <code>ConcurrentModel</code> instance,
+ * and so is the creation of a proxy by its factory, which therefore
+ * happens exactly once even when several threads retrieve it first at
+ * the same time. Restoring a snapshot is serialized with them.
+ * </P>
+ *
+ * <P>
+ * Select it for a Core by overriding <code>Facade.initializeModel</code>:
+ * </P>
+ *
+ * <listing>
+ *		protected void initializeModel() {
+ *			if (model != null) return;
+ *			model = ConcurrentModel.getInstance(multitonKey);
+ *		}
+ * </listing>
+ *
+ * @see org.puremvc.java.multicore.core.model.Model Model
+ */
+public class ConcurrentModel extends Model {
+
+	/**
+	 * Constructor.
+	 *
+	 * <P>
+	 * This <code>IModel</code> implementation is a Multiton,
+	 * so you should not call the constructor
+	 * directly, but instead call the static Multiton
+	 * Factory method <code>ConcurrentModel.getInstance( multitonKey )</code>
+	 */
+	protected ConcurrentModel(String key) {
+		super(key);
+	}
+
+	/**
+	 * <code>ConcurrentModel</code> Multiton Factory method.
+	 *
+	 * @return the <code>ConcurrentModel</code> for this Multiton key
+	 * @throws RuntimeException if a plain <code>Model</code> has already
+	 *         been constructed for this Multiton key
+	 */
+	public static ConcurrentModel getInstance(String key) {
+		synchronized (Model.class) {
+			Model model = instanceMap.get(key);
+			if (model == null) {
+				model = new ConcurrentModel(key);
+			}
+			if (!(model instanceof ConcurrentModel)) {
+				throw new RuntimeException(key + " Model already constructed");
+			}
+			return (ConcurrentModel) model;
+		}
+	}
+
+	protected <K, V> Map<K, V> createMap() {
+		return new ConcurrentHashMap<K, V>();
+	}
+
+	public synchronized void registerProxy(IProxy proxy) {
+		super.registerProxy(proxy);
+	}
+
+	public synchronized IProxy removeProxy(String proxy) {
+		return super.removeProxy(proxy);
+	}
+
+	public synchronized void registerProxyFactory(String proxyName, IProxyFactory factory) {
+		super.registerProxyFactory(proxyName, factory);
+	}
+
+	public synchronized void restoreSnapshot(InputStream in) throws IOException {
+		super.restoreSnapshot(in);
+	}
+
+	protected synchronized IProxy createProxy(String proxyName) {
+		// another thread may have created it while this one waited
+		IProxy proxy = this.proxyMap.get(proxyName);
+		if (proxy != null) {
+			return proxy;
+		}
+		return super.createProxy(proxyName);
+	}
+}
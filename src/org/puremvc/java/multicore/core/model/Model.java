@@ -6,11 +6,20 @@
  */
 package org.puremvc.java.multicore.core.model;
 
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Map;
 
-import org.puremvc.java.multicore.interfaces.IModel;
 import org.puremvc.java.multicore.interfaces.IProxy;
+import org.puremvc.java.multicore.interfaces.IProxyFactory;
+import org.puremvc.java.multicore.interfaces.ISnapshotModel;
+import org.puremvc.java.multicore.interfaces.ISnapshotProxy;
 
 /**
  * A Multiton <code>IModel</code> implementation.
@@ -35,10 +44,26 @@ import org.puremvc.java.multicore.interfaces.IProxy;
  * instances once the <code>Facade</code> has initialized the Core
  * actors.</p>
  *
+ * <P>
+ * An <code>IProxyFactory</code> may be registered instead, so that the
+ * <code>IProxy</code> is only created, and its data only loaded, when it
+ * is first retrieved.</P>
+ *
+ * <P>
+ * The data of the proxies implementing <code>ISnapshotProxy</code> can be
+ * saved to a binary snapshot and restored from it, to warm-start a Core.
+ * The snapshot is streamed proxy by proxy, each one as a sequence of
+ * chunks, so saving it does not hold the whole snapshot in memory.
+ * Restoring it streams each section straight to its proxy, and only
+ * keeps in memory the snapshots of the proxies that are not registered
+ * yet, until they are registered. Restoring is not transactional: a
+ * snapshot found truncated or corrupt part way leaves the proxies read
+ * before that point restored.</P>
+ *
  * @see org.puremvc.java.multicore.patterns.proxy.Proxy Proxy
  * @see org.puremvc.java.multicore.interfaces.IProxy IProxy
  */
-public class Model implements IModel {
+public class Model implements ISnapshotModel {
 
 	/**
 	 * Singleton instance.
@@ -50,6 +75,23 @@ public class Model implements IModel {
 	 */
 	protected Map<String, IProxy> proxyMap;
 
+	/**
+	 * Mapping of proxyNames to the IProxyFactory instances of the proxies
+	 * not created yet.
+	 */
+	protected Map<String, IProxyFactory> proxyFactoryMap;
+
+	/**
+	 * Mapping of proxy classes to IProxy instances.
+	 */
+	protected Map<Class<? extends IProxy>, IProxy> proxyTypeMap;
+
+	/**
+	 * Mapping of proxyNames to the restored snapshots of the proxies not
+	 * registered yet.
+	 */
+	protected Map<String, byte[]> snapshotMap;
+
 	/**
 	 * 	 The Multiton Key for this Core.
 	 */
@@ -57,6 +99,10 @@ public class Model implements IModel {
 
 	protected static Map<String, Model> instanceMap = new HashMap<String, Model>();
 
+	private static final int SNAPSHOT_MAGIC = 0x504D5653;
+
+	private static final int SNAPSHOT_VERSION = 1;
+
 	/**
 	 * Constructor.
 	 *
@@ -72,7 +118,10 @@ public class Model implements IModel {
 	protected Model(String key) {
 		multitonKey = key;
 		instanceMap.put(multitonKey, this);
-		this.proxyMap = new HashMap<String, IProxy>();
+		this.proxyMap = createMap();
+		this.proxyFactoryMap = createMap();
+		this.proxyTypeMap = createMap();
+		this.snapshotMap = createMap();
 		initializeModel();
 	}
 
@@ -89,6 +138,20 @@ public class Model implements IModel {
 	protected void initializeModel() {
 	}
 
+	/**
+	 * Create the maps holding the registered proxies and proxy factories.
+	 *
+	 * <P>
+	 * Called by the constructor before <code>initializeModel</code>.
+	 * Subclasses used from several threads return concurrent maps here.
+	 * </P>
+	 *
+	 * @return an empty map
+	 */
+	protected <K, V> Map<K, V> createMap() {
+		return new HashMap<K, V>();
+	}
+
 	/**
 	 * <code>Model</code> Multiton Factory method.
 	 *
@@ -109,18 +172,60 @@ public class Model implements IModel {
 	 */
 	public void registerProxy(IProxy proxy) {
 		proxy.initializeNotifier(multitonKey);
-		this.proxyMap.put(proxy.getProxyName(), proxy);
+		byte[] snapshot = this.snapshotMap.isEmpty() ? null : this.snapshotMap.remove(proxy.getProxyName());
+		if (snapshot != null && proxy instanceof ISnapshotProxy) {
+			restoreSnapshot((ISnapshotProxy) proxy, snapshot);
+		}
+		removeProxyType(this.proxyMap.put(proxy.getProxyName(), proxy));
+		this.proxyTypeMap.put(proxy.getClass(), proxy);
 		proxy.onRegister();
 	}
 
 	/**
 	 * Remove an <code>Proxy</code> from the <code>Model</code>.
 	 *
+	 * <P>
+	 * The <code>onRemove</code> method of the removed <code>Proxy</code>
+	 * is called, so it can release its resources.
+	 * </P>
+	 *
 	 * @param proxy
 	 *            name of the <code>Proxy</code> instance to be removed.
 	 */
 	public IProxy removeProxy(String proxy) {
-		return (IProxy) this.proxyMap.remove(proxy);
+		this.proxyFactoryMap.remove(proxy);
+		IProxy removed = this.proxyMap.remove(proxy);
+		if (removed != null) {
+			removeProxyType(removed);
+			removed.onRemove();
+		}
+		return removed;
+	}
+
+	private void removeProxyType(IProxy proxy) {
+		if (proxy != null && this.proxyTypeMap.get(proxy.getClass()) == proxy) {
+			this.proxyTypeMap.remove(proxy.getClass());
+		}
+	}
+
+	/**
+	 * Register an <code>IProxyFactory</code> with the <code>Model</code>.
+	 *
+	 * <P>
+	 * The <code>IProxy</code> is created, initialized and registered the
+	 * first time it is retrieved. Until then, <code>hasProxy</code> reports
+	 * it as registered. A proxy already registered under this name is
+	 * replaced.
+	 * </P>
+	 *
+	 * @param proxyName
+	 *            the name of the <code>IProxy</code> the factory creates
+	 * @param factory
+	 *            the <code>IProxyFactory</code> creating the <code>IProxy</code>
+	 */
+	public void registerProxyFactory(String proxyName, IProxyFactory factory) {
+		removeProxyType(this.proxyMap.remove(proxyName));
+		this.proxyFactoryMap.put(proxyName, factory);
 	}
 
 	/**
@@ -131,16 +236,176 @@ public class Model implements IModel {
 	 *         given <code>proxyName</code>.
 	 */
 	public IProxy retrieveProxy(String proxy) {
-		return (IProxy) this.proxyMap.get(proxy);
+		IProxy instance = this.proxyMap.get(proxy);
+		if (instance == null && !this.proxyFactoryMap.isEmpty()) {
+			instance = createProxy(proxy);
+		}
+		return instance;
+	}
+
+	/**
+	 * Retrieve an <code>Proxy</code> from the <code>Model</code> by its class.
+	 *
+	 * <P>
+	 * The proxy is looked up by the identity of its class, without hashing
+	 * its name or casting at the call site. This lookup has two limits:
+	 * </P>
+	 *
+	 * <UL>
+	 * <LI>Only the proxy registered last with exactly this class is found:
+	 * a proxy of a subclass, or an implementation of an interface, is not
+	 * found by its superclass or interface.</LI>
+	 * <LI>A pending <code>IProxyFactory</code> is not called, since the
+	 * class of its proxy is only known once it has been created: such a
+	 * proxy is found once it has been retrieved by name.</LI>
+	 * </UL>
+	 *
+	 * @param proxyClass
+	 *            the class of the <code>Proxy</code>
+	 * @return the <code>Proxy</code> instance of this class, or
+	 *         <code>null</code> if there is none.
+	 */
+	public <T extends IProxy> T retrieveProxy(Class<T> proxyClass) {
+		return proxyClass.cast(this.proxyTypeMap.get(proxyClass));
+	}
+
+	/**
+	 * Create and register the <code>IProxy</code> of a registered
+	 * <code>IProxyFactory</code>.
+	 *
+	 * @param proxyName
+	 *            the name of the <code>IProxy</code>
+	 * @return the new <code>IProxy</code>, or <code>null</code> if no
+	 *         factory is registered under this name
+	 * @throws IllegalStateException
+	 *             if the factory creates a proxy with another name
+	 */
+	protected IProxy createProxy(String proxyName) {
+		IProxyFactory factory = this.proxyFactoryMap.get(proxyName);
+		if (factory == null) {
+			return null;
+		}
+		IProxy proxy = factory.createProxy();
+		if (!proxyName.equals(proxy.getProxyName())) {
+			throw new IllegalStateException("Proxy factory for " + proxyName + " created " + proxy.getProxyName());
+		}
+		registerProxy(proxy);
+		// the factory stays registered until its proxy is, so that a
+		// failed creation is retried by the next retrieveProxy
+		if (this.proxyFactoryMap.get(proxyName) == factory) {
+			this.proxyFactoryMap.remove(proxyName);
+		}
+		return proxy;
+	}
+
+	private void restoreSnapshot(ISnapshotProxy proxy, byte[] snapshot) {
+		try {
+			proxy.readSnapshot(new DataInputStream(new ByteArrayInputStream(snapshot)));
+		} catch (IOException e) {
+			throw new IllegalStateException("Failed to restore snapshot of " + proxy.getProxyName(), e);
+		}
+	}
+
+	/**
+	 * Save the data of the registered <code>ISnapshotProxy</code>s.
+	 *
+	 * <P>
+	 * Snapshots restored for proxies that have not been registered since
+	 * are saved again unchanged. The stream is flushed but not closed.
+	 * </P>
+	 *
+	 * @param out
+	 *            the stream the snapshot is written to
+	 * @throws IOException
+	 *             if a proxy or the stream fails
+	 */
+	public void saveSnapshot(OutputStream out) throws IOException {
+		DataOutputStream data = new DataOutputStream(out);
+		data.writeInt(SNAPSHOT_MAGIC);
+		data.writeInt(SNAPSHOT_VERSION);
+		for (IProxy proxy : new ArrayList<IProxy>(this.proxyMap.values())) {
+			if (proxy instanceof ISnapshotProxy) {
+				data.writeBoolean(true);
+				data.writeUTF(proxy.getProxyName());
+				SnapshotOutputStream chunks = new SnapshotOutputStream(data);
+				((ISnapshotProxy) proxy).writeSnapshot(new DataOutputStream(chunks));
+				chunks.close();
+			}
+		}
+		for (Map.Entry<String, byte[]> pending : new HashMap<String, byte[]>(this.snapshotMap).entrySet()) {
+			data.writeBoolean(true);
+			data.writeUTF(pending.getKey());
+			SnapshotOutputStream chunks = new SnapshotOutputStream(data);
+			chunks.write(pending.getValue());
+			chunks.close();
+		}
+		data.writeBoolean(false);
+		data.flush();
+	}
+
+	/**
+	 * Restore a snapshot written by <code>saveSnapshot</code>.
+	 *
+	 * <P>
+	 * Registered <code>ISnapshotProxy</code>s read their snapshot at once,
+	 * straight from the stream; the bytes a proxy leaves unread are
+	 * skipped. The snapshots of the other proxies are kept, and read by
+	 * the proxy registered under the same name before its
+	 * <code>onRegister</code> is called. The stream is read up to the end
+	 * of the snapshot but not closed.
+	 * </P>
+	 *
+	 * <P>
+	 * The restore is not transactional. When the snapshot turns out to be
+	 * truncated or corrupt, or a proxy fails to read it, the proxies read
+	 * before keep their restored data; the proxy being read may have read
+	 * part of its snapshot, and the snapshot of an unregistered proxy is
+	 * only kept once it has been read whole.
+	 * </P>
+	 *
+	 * @param in
+	 *            the stream the snapshot is read from
+	 * @throws IOException
+	 *             if the snapshot is not valid, or a proxy or the stream
+	 *             fails
+	 */
+	public void restoreSnapshot(InputStream in) throws IOException {
+		DataInputStream data = new DataInputStream(in);
+		if (data.readInt() != SNAPSHOT_MAGIC) {
+			throw new IOException("Not a PureMVC snapshot");
+		}
+		int version = data.readInt();
+		if (version != SNAPSHOT_VERSION) {
+			throw new IOException("Unsupported snapshot version " + version);
+		}
+		while (data.readBoolean()) {
+			String proxyName = data.readUTF();
+			SnapshotInputStream chunks = new SnapshotInputStream(data);
+			IProxy proxy = this.proxyMap.get(proxyName);
+			if (proxy instanceof ISnapshotProxy) {
+				((ISnapshotProxy) proxy).readSnapshot(new DataInputStream(chunks));
+			} else if (proxy == null) {
+				this.snapshotMap.put(proxyName, chunks.readRemaining());
+			}
+			chunks.close();
+		}
 	}
 
 	/**
-	 * Remove an IModel instance
+	 * Remove an IModel instance, removing its proxies.
 	 *
 	 * @param multitonKey of IModel instance to remove
 	 */
-	public synchronized static void removeModel(String key) {
-		instanceMap.remove(key);
+	public static void removeModel(String key) {
+		Model model;
+		synchronized (Model.class) {
+			model = instanceMap.remove(key);
+		}
+		if (model != null) {
+			for (String proxyName : new ArrayList<String>(model.proxyMap.keySet())) {
+				model.removeProxy(proxyName);
+			}
+		}
 	}
 
 	/**
@@ -150,6 +415,6 @@ public class Model implements IModel {
 	 * @return whether a Proxy is currently registered with the given <code>proxyName</code>.
 	 */
 	public boolean hasProxy(String proxyName) {
-		return proxyMap.containsKey(proxyName);
+		return proxyMap.containsKey(proxyName) || proxyFactoryMap.containsKey(proxyName);
 	}
 }
@@ -0,0 +1,98 @@
+/* 
+ PureMVC Java MultiCore Port by Ima OpenSource <opensource@ima.eu>
+ Maintained by Anthony Quinault <anthony.quinault@puremvc.org>
+ PureMVC - Copyright(c) 2006-08 Futurescale, Inc., Some rights reserved. 
+ Your reuse is governed by the Creative Commons Attribution 3.0 License 
+ */
+package org.puremvc.java.multicore.core.model;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Reads the snapshot of one proxy written by a
+ * <code>SnapshotOutputStream</code>, ending at its empty chunk.
+ */
+class SnapshotInputStream extends InputStream {
+
+	private final DataInputStream in;
+
+	// bytes left in the current chunk
+	private int remaining = 0;
+
+	private boolean ended = false;
+
+	SnapshotInputStream(DataInputStream in) {
+		this.in = in;
+	}
+
+	private boolean fill() throws IOException {
+		while (remaining == 0 && !ended) {
+			remaining = in.readInt();
+			if (remaining < 0) {
+				throw new IOException("Corrupt snapshot chunk length " + remaining);
+			}
+			ended = remaining == 0;
+		}
+		return remaining > 0;
+	}
+
+	public int read() throws IOException {
+		if (!fill()) {
+			return -1;
+		}
+		int b = in.read();
+		if (b < 0) {
+			throw new EOFException("Truncated snapshot");
+		}
+		remaining--;
+		return b;
+	}
+
+	public int read(byte[] b, int off, int len) throws IOException {
+		if (len == 0) {
+			return 0;
+		}
+		if (!fill()) {
+			return -1;
+		}
+		int n = in.read(b, off, Math.min(len, remaining));
+		if (n < 0) {
+			throw new EOFException("Truncated snapshot");
+		}
+		remaining -= n;
+		return n;
+	}
+
+	public int available() {
+		return remaining;
+	}
+
+	/**
+	 * Read the rest of the snapshot into an array.
+	 *
+	 * @return the unread bytes of the snapshot
+	 */
+	byte[] readRemaining() throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		byte[] buffer = new byte[SnapshotOutputStream.CHUNK_SIZE];
+		int n;
+		while ((n = read(buffer, 0, buffer.length)) > 0) {
+			bytes.write(buffer, 0, n);
+		}
+		return bytes.toByteArray();
+	}
+
+	/**
+	 * Skip the rest of the snapshot, leaving the underlying stream at the
+	 * next one.
+	 */
+	public void close() throws IOException {
+		byte[] buffer = new byte[4096];
+		while (read(buffer, 0, buffer.length) > 0) {
+		}
+	}
+}
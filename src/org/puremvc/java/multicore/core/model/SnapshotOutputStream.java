@@ -0,0 +1,73 @@
+/* 
+ PureMVC Java MultiCore Port by Ima OpenSource <opensource@ima.eu>
+ Maintained by Anthony Quinault <anthony.quinault@puremvc.org>
+ PureMVC - Copyright(c) 2006-08 Futurescale, Inc., Some rights reserved. 
+ Your reuse is governed by the Creative Commons Attribution 3.0 License 
+ */
+package org.puremvc.java.multicore.core.model;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Writes the snapshot of one proxy as a sequence of length-prefixed
+ * chunks, ended by an empty chunk, so that it can be streamed without
+ * knowing its length beforehand.
+ */
+class SnapshotOutputStream extends OutputStream {
+
+	static final int CHUNK_SIZE = 64 * 1024;
+
+	private final DataOutputStream out;
+
+	private final byte[] chunk = new byte[CHUNK_SIZE];
+
+	private int count = 0;
+
+	private boolean closed = false;
+
+	SnapshotOutputStream(DataOutputStream out) {
+		this.out = out;
+	}
+
+	public void write(int b) throws IOException {
+		if (count == CHUNK_SIZE) {
+			writeChunk();
+		}
+		chunk[count++] = (byte) b;
+	}
+
+	public void write(byte[] b, int off, int len) throws IOException {
+		while (len > 0) {
+			if (count == CHUNK_SIZE) {
+				writeChunk();
+			}
+			int n = Math.min(len, CHUNK_SIZE - count);
+			System.arraycopy(b, off, chunk, count, n);
+			count += n;
+			off += n;
+			len -= n;
+		}
+	}
+
+	private void writeChunk() throws IOException {
+		if (count > 0) {
+			out.writeInt(count);
+			out.write(chunk, 0, count);
+			count = 0;
+		}
+	}
+
+	/**
+	 * Write the pending chunk and the end of the snapshot, leaving the
+	 * underlying stream open.
+	 */
+	public void close() throws IOException {
+		if (!closed) {
+			closed = true;
+			writeChunk();
+			out.writeInt(0);
+		}
+	}
+}
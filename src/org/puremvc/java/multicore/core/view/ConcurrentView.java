@@ -0,0 +1,108 @@
+/* 
+ PureMVC Java MultiCore Port by Ima OpenSource <opensource@ima.eu>
+ Maintained by Anthony Quinault <anthony.quinault@puremvc.org>
+ PureMVC - Copyright(c) 2006-08 Futurescale, Inc., Some rights reserved. 
+ Your reuse is governed by the Creative Commons Attribution 3.0 License 
+ */
+package org.puremvc.java.multicore.core.view;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.puremvc.java.multicore.interfaces.IMediator;
+
+/**
+ * A Multiton <code>IView</code> implementation that may be used from
+ * several threads at once.
+ *
+ * <P>
+ * <code>notifyObservers</code>, <code>retrieveMediator</code> and
+ * <code>hasMediator</code> take no locks: they read the immutable observer
+ * snapshots published by <code>View</code> and a concurrent mediator map.
+ * Registering and removing observers and mediators is serialized on the
+ * <code>ConcurrentView</code> instance (the observer methods already are in
+ * <code>View</code>), so each change is applied atomically and becomes
+ * visible to all sending threads. The <code>onRegister</code> and
+ * <code>onRemove</code> methods of mediators are called outside that
+ * lock, so they may send notifications that other threads handle by
+ * registering mediators. A mediator's interests are registered once its
+ * <code>onRegister</code> has returned, unless it was removed meanwhile.
+ * </P>
+ *
+ * <P>
+ * Select it for a Core by overriding <code>Facade.initializeView</code>:
+ * </P>
+ *
+ * <listing>
+ *		protected void initializeView() {
+ *			if (view != null) return;
+ *			view = ConcurrentView.getInstance(multitonKey);
+ *		}
+ * </listing>
+ *
+ * @see org.puremvc.java.multicore.core.view.View View
+ */
+public class ConcurrentView extends View {
+
+	/**
+	 * Constructor.
+	 *
+	 * <P>
+	 * This <code>IView</code> implementation is a Multiton,
+	 * so you should not call the constructor
+	 * directly, but instead call the static Multiton
+	 * Factory method <code>ConcurrentView.getInstance( multitonKey )</code>
+	 */
+	protected ConcurrentView(String key) {
+		super(key);
+	}
+
+	/**
+	 * <code>ConcurrentView</code> Multiton Factory method.
+	 *
+	 * @return the <code>ConcurrentView</code> for this Multiton key
+	 * @throws RuntimeException if a plain <code>View</code> has already
+	 *         been constructed for this Multiton key
+	 */
+	public static ConcurrentView getInstance(String key) {
+		synchronized (View.class) {
+			View view = instanceMap.get(key);
+			if (view == null) {
+				view = new ConcurrentView(key);
+			}
+			if (!(view instanceof ConcurrentView)) {
+				throw new RuntimeException(key + " View already constructed");
+			}
+			return (ConcurrentView) view;
+		}
+	}
+
+	protected Map<String, IMediator> createMediatorMap() {
+		return new ConcurrentHashMap<String, IMediator>();
+	}
+
+	public void registerMediator(IMediator mediator) {
+		synchronized (this) {
+			if (!putMediator(mediator)) {
+				return;
+			}
+		}
+		mediator.onRegister();
+		synchronized (this) {
+			if (retrieveMediator(mediator.getMediatorName()) == mediator) {
+				registerInterests(mediator);
+			}
+		}
+	}
+
+	public IMediator removeMediator(String mediatorName) {
+		IMediator mediator;
+		synchronized (this) {
+			mediator = takeMediator(mediatorName);
+		}
+		if (mediator != null) {
+			mediator.onRemove();
+		}
+		return mediator;
+	}
+}
@@ -0,0 +1,203 @@
+/* 
+ PureMVC Java MultiCore Port by Ima OpenSource <opensource@ima.eu>
+ Maintained by Anthony Quinault <anthony.quinault@puremvc.org>
+ PureMVC - Copyright(c) 2006-08 Futurescale, Inc., Some rights reserved. 
+ Your reuse is governed by the Creative Commons Attribution 3.0 License 
+ */
+package org.puremvc.java.multicore.core.view;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.puremvc.java.multicore.interfaces.IObserver;
+
+/**
+ * An immutable snapshot of the observers of one <code>INotification</code>
+ * name.
+ *
+ * <P>
+ * Each observer is registered either for every type or for a single
+ * type, with a priority. Observers are kept sorted by decreasing priority,
+ * in registration order within a priority, and the delivery list of each
+ * type that has observers of its own is computed when the snapshot is
+ * built, so notifying is a lookup by type and an array walk.
+ * </P>
+ */
+final class ObserverSet {
+
+	private static final IObserver[] NONE = new IObserver[0];
+
+	/**
+	 * The snapshot of a name without observers.
+	 */
+	static final ObserverSet EMPTY = new ObserverSet(NONE, new String[0], new int[0]);
+
+	// all observers, in delivery order
+	private final IObserver[] observers;
+
+	// the type of each observer, null for any type
+	private final String[] types;
+
+	// the priority of each observer
+	private final int[] priorities;
+
+	// observers of any type
+	private final IObserver[] untyped;
+
+	// delivery lists of the types that have observers of their own, or null
+	private final Map<String, IObserver[]> byType;
+
+	private ObserverSet(IObserver[] observers, String[] types, int[] priorities) {
+		this.observers = observers;
+		this.types = types;
+		this.priorities = priorities;
+		this.untyped = select(null);
+		Map<String, IObserver[]> lists = null;
+		for (int i = 0; i < types.length; i++) {
+			if (types[i] != null) {
+				if (lists == null) {
+					lists = new HashMap<String, IObserver[]>();
+				}
+				if (!lists.containsKey(types[i])) {
+					lists.put(types[i], select(types[i]));
+				}
+			}
+		}
+		this.byType = lists;
+	}
+
+	/**
+	 * Create the snapshot of a single observer.
+	 */
+	static ObserverSet of(IObserver observer, String type, int priority) {
+		return new ObserverSet(new IObserver[] { observer }, new String[] { type }, new int[] { priority });
+	}
+
+	/**
+	 * Get the observers to notify of an <code>INotification</code> type.
+	 *
+	 * @param type the type of the <code>INotification</code>
+	 * @return the observers, in delivery order
+	 */
+	IObserver[] get(String type) {
+		if (byType != null && type != null) {
+			IObserver[] typed = byType.get(type);
+			if (typed != null) {
+				return typed;
+			}
+		}
+		return untyped;
+	}
+
+	/**
+	 * Create a snapshot with one more observer, delivered after the
+	 * observers of the same or higher priority.
+	 */
+	ObserverSet add(IObserver observer, String type, int priority) {
+		int length = observers.length;
+		int index = length;
+		while (index > 0 && priorities[index - 1] < priority) {
+			index--;
+		}
+		IObserver[] addedObservers = new IObserver[length + 1];
+		String[] addedTypes = new String[length + 1];
+		int[] addedPriorities = new int[length + 1];
+		System.arraycopy(observers, 0, addedObservers, 0, index);
+		System.arraycopy(types, 0, addedTypes, 0, index);
+		System.arraycopy(priorities, 0, addedPriorities, 0, index);
+		addedObservers[index] = observer;
+		addedTypes[index] = type;
+		addedPriorities[index] = priority;
+		System.arraycopy(observers, index, addedObservers, index + 1, length - index);
+		System.arraycopy(types, index, addedTypes, index + 1, length - index);
+		System.arraycopy(priorities, index, addedPriorities, index + 1, length - index);
+		return new ObserverSet(addedObservers, addedTypes, addedPriorities);
+	}
+
+	/**
+	 * Create a snapshot merging the observers of another one, which are
+	 * delivered after the observers of this one with the same priority.
+	 */
+	ObserverSet concat(ObserverSet other) {
+		if (other == null || other.observers.length == 0) {
+			return this;
+		}
+		if (observers.length == 0) {
+			return other;
+		}
+		int length = observers.length + other.observers.length;
+		IObserver[] joinedObservers = new IObserver[length];
+		String[] joinedTypes = new String[length];
+		int[] joinedPriorities = new int[length];
+		int i = 0;
+		int j = 0;
+		for (int k = 0; k < length; k++) {
+			if (j == other.observers.length || (i < observers.length && priorities[i] >= other.priorities[j])) {
+				joinedObservers[k] = observers[i];
+				joinedTypes[k] = types[i];
+				joinedPriorities[k] = priorities[i];
+				i++;
+			} else {
+				joinedObservers[k] = other.observers[j];
+				joinedTypes[k] = other.types[j];
+				joinedPriorities[k] = other.priorities[j];
+				j++;
+			}
+		}
+		return new ObserverSet(joinedObservers, joinedTypes, joinedPriorities);
+	}
+
+	/**
+	 * Create a snapshot without the observers of a notify context.
+	 *
+	 * @return the new snapshot, this one if no observer has the context,
+	 *         or <code>null</code> if no observer remains
+	 */
+	ObserverSet remove(Object notifyContext) {
+		IObserver[] remainingObservers = new IObserver[observers.length];
+		String[] remainingTypes = new String[types.length];
+		int[] remainingPriorities = new int[priorities.length];
+		int count = 0;
+		for (int i = 0; i < observers.length; i++) {
+			if (!observers[i].compareNotifyContext(notifyContext)) {
+				remainingObservers[count] = observers[i];
+				remainingTypes[count] = types[i];
+				remainingPriorities[count] = priorities[i];
+				count++;
+			}
+		}
+		if (count == observers.length) {
+			return this;
+		}
+		if (count == 0) {
+			return null;
+		}
+		IObserver[] keptObservers = new IObserver[count];
+		String[] keptTypes = new String[count];
+		int[] keptPriorities = new int[count];
+		System.arraycopy(remainingObservers, 0, keptObservers, 0, count);
+		System.arraycopy(remainingTypes, 0, keptTypes, 0, count);
+		System.arraycopy(remainingPriorities, 0, keptPriorities, 0, count);
+		return new ObserverSet(keptObservers, keptTypes, keptPriorities);
+	}
+
+	private IObserver[] select(String type) {
+		int count = 0;
+		for (int i = 0; i < types.length; i++) {
+			if (types[i] == null || types[i].equals(type)) {
+				count++;
+			}
+		}
+		if (count == 0) {
+			return NONE;
+		}
+		IObserver[] selected = new IObserver[count];
+		count = 0;
+		for (int i = 0; i < types.length; i++) {
+			if (types[i] == null || types[i].equals(type)) {
+				selected[count++] = observers[i];
+			}
+		}
+		return selected;
+	}
+}
@@ -0,0 +1,406 @@
+/* 
+ PureMVC Java MultiCore Port by Ima OpenSource <opensource@ima.eu>
+ Maintained by Anthony Quinault <anthony.quinault@puremvc.org>
+ PureMVC - Copyright(c) 2006-08 Futurescale, Inc., Some rights reserved. 
+ Your reuse is governed by the Creative Commons Attribution 3.0 License 
+ */
+package org.puremvc.java.multicore.core.view;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.puremvc.java.multicore.interfaces.INotification;
+import org.puremvc.java.multicore.patterns.observer.NotificationName;
+
+/**
+ * A pre-allocated ring buffer that delivers a <code>View</code>'s
+ * notifications on a dedicated consumer thread.
+ *
+ * <P>
+ * Once set with <code>View.setDispatcher</code>, every call to
+ * <code>View.notifyObservers</code> made outside the consumer thread
+ * claims the next slot of the ring, stores the <code>INotification</code>
+ * in it and returns. The consumer thread walks the ring in sequence,
+ * notifying the observers of up to <code>batchSize</code> notifications
+ * before releasing their slots to the producers. Notifications sent by
+ * observers on the consumer thread itself are delivered synchronously,
+ * as without a dispatcher, since waiting for a free slot there could
+ * never succeed.
+ * </P>
+ *
+ * <P>
+ * Slots are reused, so no object is allocated per notification. The
+ * <code>publish</code> methods taking a name, body and type store them in
+ * the slot itself, which is then passed to the observers as the
+ * <code>INotification</code>: observers must not keep a reference to it
+ * after they return. Notifications published this way are not logged.
+ * </P>
+ *
+ * <P>
+ * Producers waiting for a free slot, and the consumer waiting for the
+ * next notification, follow the <code>WaitStrategy</code>: busy spinning
+ * has the lowest latency but keeps a core busy, yielding lets other
+ * threads run, and parking releases the CPU at the cost of latency.
+ * </P>
+ *
+ * <P>
+ * A dispatcher is started once. Once halted, it delivers every
+ * notification whose slot was claimed before the halt, and refuses any
+ * other. An observer throwing an exception or an error does not stop the
+ * consumer thread; should the consumer thread stop anyway, waiting
+ * producers fail instead of waiting forever.
+ * </P>
+ *
+ * @see org.puremvc.java.multicore.core.view.View View
+ */
+public class RingBufferDispatcher {
+
+	/**
+	 * How a thread waits for the ring to be ready.
+	 */
+	public enum WaitStrategy {
+		/** Spin on the CPU. */
+		BUSY_SPIN,
+		/** Yield to other threads between checks. */
+		YIELD,
+		/** Park for a short time between checks. */
+		PARK
+	}
+
+	private final static Logger logger = Logger.getLogger(RingBufferDispatcher.class.getName());
+
+	private static final long PARK_NANOS = 50000L;
+
+	// set in the cursor while no sequence may be claimed
+	private static final long CLOSED = 1L << 62;
+
+	private final Slot[] slots;
+
+	private final int mask;
+
+	private final WaitStrategy waitStrategy;
+
+	private final int batchSize;
+
+	// next sequence to claim, closed until started and once halted
+	private final AtomicLong cursor = new AtomicLong(CLOSED);
+
+	// sequence of the last slot released by the consumer
+	private volatile long consumed = -1;
+
+	private boolean started = false;
+
+	// whether the consumer thread has stopped
+	private volatile boolean terminated = false;
+
+	private volatile Thread consumer;
+
+	private View view;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param capacity
+	 *            the number of slots, a power of two
+	 * @param waitStrategy
+	 *            how producers and the consumer wait
+	 * @param batchSize
+	 *            the maximum number of notifications delivered before
+	 *            their slots are released
+	 */
+	public RingBufferDispatcher(int capacity, WaitStrategy waitStrategy, int batchSize) {
+		if (capacity < 1 || (capacity & (capacity - 1)) != 0) {
+			throw new IllegalArgumentException("Capacity must be a power of two: " + capacity);
+		}
+		if (batchSize < 1) {
+			throw new IllegalArgumentException("Batch size must be positive: " + batchSize);
+		}
+		this.slots = new Slot[capacity];
+		for (int i = 0; i < capacity; i++) {
+			this.slots[i] = new Slot();
+		}
+		this.mask = capacity - 1;
+		this.waitStrategy = waitStrategy;
+		this.batchSize = batchSize;
+	}
+
+	/**
+	 * Constructor.
+	 *
+	 * <P>
+	 * Waits by yielding and releases slots after at most a whole ring.
+	 * </P>
+	 *
+	 * @param capacity
+	 *            the number of slots, a power of two
+	 */
+	public RingBufferDispatcher(int capacity) {
+		this(capacity, WaitStrategy.YIELD, capacity);
+	}
+
+	/**
+	 * Publish an <code>INotification</code>.
+	 *
+	 * @param note
+	 *            the <code>INotification</code> to deliver
+	 */
+	public void publish(INotification note) {
+		if (!offer(note)) {
+			throw new IllegalStateException("Dispatcher not running");
+		}
+	}
+
+	/**
+	 * Publish an <code>INotification</code> if the dispatcher is running.
+	 *
+	 * @return whether the <code>INotification</code> was published
+	 */
+	boolean offer(INotification note) {
+		long sequence = claim();
+		if (sequence < 0) {
+			return false;
+		}
+		Slot slot = slots[(int) sequence & mask];
+		slot.note = note;
+		slot.sequence = sequence;
+		return true;
+	}
+
+	/**
+	 * Publish a notification without creating an <code>INotification</code>.
+	 *
+	 * @param name
+	 *            the name of the notification
+	 * @param body
+	 *            the body of the notification (optional)
+	 * @param type
+	 *            the type of the notification (optional)
+	 */
+	public void publish(String name, Object body, String type) {
+		long sequence = next();
+		Slot slot = slots[(int) sequence & mask];
+		slot.name = name;
+		slot.body = body;
+		slot.type = type;
+		slot.sequence = sequence;
+	}
+
+	/**
+	 * Publish a notification with an interned name without creating an
+	 * <code>INotification</code>.
+	 *
+	 * @param name
+	 *            the interned name of the notification
+	 * @param body
+	 *            the body of the notification (optional)
+	 * @param type
+	 *            the type of the notification (optional)
+	 */
+	public void publish(NotificationName name, Object body, String type) {
+		long sequence = next();
+		Slot slot = slots[(int) sequence & mask];
+		slot.notificationName = name;
+		slot.name = name.getName();
+		slot.body = body;
+		slot.type = type;
+		slot.sequence = sequence;
+	}
+
+	/**
+	 * Check whether the calling thread is the consumer thread.
+	 *
+	 * @return whether notifications are being delivered by the calling thread
+	 */
+	public boolean isConsumerThread() {
+		return Thread.currentThread() == consumer;
+	}
+
+	/**
+	 * Start delivering notifications to a <code>View</code>.
+	 */
+	synchronized void start(View view) {
+		if (started) {
+			throw new IllegalStateException("Dispatcher already started");
+		}
+		this.started = true;
+		this.view = view;
+		Thread thread = new Thread(new Runnable() {
+			public void run() {
+				consume();
+			}
+		}, "PureMVC-RingBufferDispatcher");
+		thread.setDaemon(true);
+		this.consumer = thread;
+		cursor.set(0);
+		thread.start();
+	}
+
+	/**
+	 * Stop accepting notifications, and stop the consumer thread once every
+	 * claimed slot has been delivered.
+	 */
+	synchronized void halt() {
+		close();
+		Thread thread = consumer;
+		if (thread != null && thread != Thread.currentThread()) {
+			try {
+				thread.join();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+
+	private void close() {
+		long current;
+		do {
+			current = cursor.get();
+		} while ((current & CLOSED) == 0 && !cursor.compareAndSet(current, current | CLOSED));
+	}
+
+	/**
+	 * Claim the next sequence, waiting for its slot to be released.
+	 */
+	private long next() {
+		long sequence = claim();
+		if (sequence < 0) {
+			throw new IllegalStateException("Dispatcher not running");
+		}
+		return sequence;
+	}
+
+	/**
+	 * Claim the next sequence unless the dispatcher is closed, waiting for
+	 * its slot to be released.
+	 *
+	 * @return the sequence, or <code>-1</code> if the dispatcher is closed
+	 */
+	private long claim() {
+		long sequence;
+		do {
+			sequence = cursor.get();
+			if ((sequence & CLOSED) != 0) {
+				return -1;
+			}
+		} while (!cursor.compareAndSet(sequence, sequence + 1));
+		long wrapPoint = sequence - slots.length;
+		while (wrapPoint > consumed) {
+			if (terminated) {
+				throw new IllegalStateException("Dispatcher consumer stopped");
+			}
+			idle();
+		}
+		return sequence;
+	}
+
+	private void consume() {
+		try {
+			long next = consumed + 1;
+			while (true) {
+				Slot slot = slots[(int) next & mask];
+				if (slot.sequence != next) {
+					// once closed, the cursor no longer moves, so every
+					// slot below it has been claimed and will be published
+					long current = cursor.get();
+					if ((current & CLOSED) != 0 && next >= (current & ~CLOSED)) {
+						break;
+					}
+					idle();
+					continue;
+				}
+				long end = next + batchSize;
+				do {
+					deliver(slot);
+					next++;
+					slot = slots[(int) next & mask];
+				} while (next < end && slot.sequence == next);
+				consumed = next - 1;
+			}
+		} finally {
+			close();
+			terminated = true;
+			consumer = null;
+		}
+	}
+
+	private void deliver(Slot slot) {
+		INotification note = slot.note != null ? slot.note : slot;
+		try {
+			view.dispatch(note, slot.notificationName);
+		} catch (Throwable e) {
+			logger.log(Level.SEVERE, "Failed to deliver " + note.getName(), e);
+		} finally {
+			slot.clear();
+		}
+	}
+
+	private void idle() {
+		switch (waitStrategy) {
+		case BUSY_SPIN:
+			break;
+		case YIELD:
+			Thread.yield();
+			break;
+		case PARK:
+			LockSupport.parkNanos(PARK_NANOS);
+			break;
+		}
+	}
+
+	/**
+	 * A reusable slot of the ring, which doubles as the
+	 * <code>INotification</code> for notifications published field by field.
+	 */
+	private static final class Slot implements INotification {
+
+		volatile long sequence = -1;
+
+		INotification note;
+
+		NotificationName notificationName;
+
+		String name;
+
+		Object body;
+
+		String type;
+
+		void clear() {
+			note = null;
+			notificationName = null;
+			name = null;
+			body = null;
+			type = null;
+		}
+
+		public String getName() {
+			return name;
+		}
+
+		public void setBody(Object body) {
+			this.body = body;
+		}
+
+		public Object getBody() {
+			return body;
+		}
+
+		public void setType(String type) {
+			this.type = type;
+		}
+
+		public String getType() {
+			return type;
+		}
+
+		public boolean isLoggingEnabled() {
+			return false;
+		}
+
+		public String toString() {
+			return "Notification: " + name + " Body:" + body + " Type:" + type;
+		}
+	}
+}
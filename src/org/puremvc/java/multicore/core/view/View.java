@@ -6,14 +6,21 @@
  */
 package org.puremvc.java.multicore.core.view;
 
-import java.util.ArrayList;
 import java.util.HashMap;
-import java.util.List;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 import java.util.logging.Logger;
 
 import org.puremvc.java.multicore.interfaces.*;
+import org.puremvc.java.multicore.patterns.mediator.Mediator;
+import org.puremvc.java.multicore.patterns.observer.Notification;
+import org.puremvc.java.multicore.patterns.observer.NotificationName;
 import org.puremvc.java.multicore.patterns.observer.Observer;
+import org.puremvc.java.multicore.patterns.observer.Subscription;
 
 /**
  * A Multiton <code>IView</code> implementation.
@@ -30,6 +37,26 @@ import org.puremvc.java.multicore.patterns.observer.Observer;
  * <LI>Notifying the <code>IObservers</code> of a given <code>INotification</code> when it broadcast.</LI>
  * </UL>
  *
+ * <P>
+ * Observers may be registered for a name prefix by ending the name with
+ * <code>*</code>: <code>order.fill.*</code> observes every notification
+ * whose name starts with <code>order.fill.</code>, and <code>*</code>
+ * observes all notifications. Prefix observers are matched against each
+ * distinct name once, the first time it is notified, and are notified
+ * after the observers of the exact name with the same priority. A name
+ * ending with <code>*</code> is always a prefix, so notifications whose
+ * name ends with <code>*</code> cannot be observed by their exact name.
+ * </P>
+ *
+ * <P>
+ * Observer lists are published as immutable snapshots, so
+ * <code>notifyObservers</code> may be called from any thread without
+ * locking. Registering and removing observers is synchronized, but
+ * registering and removing mediators is not; use <code>ConcurrentView</code>
+ * for Cores whose registrations happen on several threads.
+ * </P>
+ *
+ * @see org.puremvc.java.multicore.core.view.ConcurrentView ConcurrentView
  * @see org.puremvc.java.multicore.patterns.mediator.Mediator Mediator
  * @see org.puremvc.java.multicore.patterns.observer.Observer Observer
  * @see org.puremvc.java.multicore.patterns.observer.Notification Notification
@@ -37,16 +64,25 @@ import org.puremvc.java.multicore.patterns.observer.Observer;
 public class View implements IView {
     private final static Logger logger = Logger.getLogger(View.class.getName());
     // Mapping of Mediator names to Mediator instances
-	// Mapping of Notification names to Observer lists
-	private HashMap<String,List<IObserver>> observerMap;
-	private HashMap<String,IMediator> mediatorMap;
+	// Mapping of Notification name ordinals to Observer lists
+	private volatile AtomicReferenceArray<ObserverSet> observerTable;
+	// Observers of exact Notification names, by name ordinal
+	private ObserverSet[] exactObservers;
+	// Observers of Notification name prefixes, if any
+	private volatile WildcardTrie wildcards;
+	// Names and prefixes observed by each notify context
+	private Map<Object, Set<String>> registrations;
+	private Map<String,IMediator> mediatorMap;
+
+	// Ring buffer delivering notifications on its own thread, if any
+	private volatile RingBufferDispatcher dispatcher;
 
 	/**
 	 * 	 The Multiton Key for this Core.
 	 */
 	protected String multitonKey;
 
-	protected static Map<String, View> instanceMap = new HashMap<String, View>();
+	protected static Map<String, View> instanceMap = new ConcurrentHashMap<String, View>();
 
 	/**
 	 * Constructor.
@@ -63,8 +99,10 @@ public class View implements IView {
 	protected View(String key) {
 		this.multitonKey = key;
 		instanceMap.put(multitonKey, this);
-		this.mediatorMap = new HashMap<String,IMediator>();
-		this.observerMap = new HashMap<String,List<IObserver>>();
+		this.mediatorMap = createMediatorMap();
+		this.observerTable = new AtomicReferenceArray<ObserverSet>(0);
+		this.exactObservers = new ObserverSet[0];
+		this.registrations = new IdentityHashMap<Object, Set<String>>();
 		initializeView();
 	}
 
@@ -81,6 +119,21 @@ public class View implements IView {
 	protected void initializeView() {
 	}
 
+	/**
+	 * Create the map holding the registered <code>IMediator</code> instances.
+	 *
+	 * <P>
+	 * Called by the constructor before <code>initializeView</code>.
+	 * Subclasses that register mediators from several threads return a
+	 * concurrent map here.
+	 * </P>
+	 *
+	 * @return an empty map of mediator names to <code>IMediator</code> instances
+	 */
+	protected Map<String,IMediator> createMediatorMap() {
+		return new HashMap<String,IMediator>();
+	}
+
 	/**
 	 * View Singleton Factory method.
 	 *
@@ -101,7 +154,9 @@ public class View implements IView {
 	 * All previously attached <code>Observers</code> for this
 	 * <code>Notification</code>'s list are notified and are passed a
 	 * reference to the <code>Notification</code> in the order in which they
-	 * were registered.
+	 * were registered, those registered with a higher priority first.
+	 * <code>Observers</code> registered for a specific type are only
+	 * notified of <code>Notifications</code> of that type.
 	 * </P>
 	 *
 	 * @param note
@@ -109,48 +164,243 @@ public class View implements IView {
 	 *             <code>Observers</code> of.
 	 */
 	public void notifyObservers(INotification note) {
+		RingBufferDispatcher ringBuffer = this.dispatcher;
+		// a dispatcher halted meanwhile refuses the note, which is then
+		// notified on this thread
+		if (ringBuffer != null && !ringBuffer.isConsumerThread() && ringBuffer.offer(note)) {
+			return;
+		}
+		dispatch(note, null);
+	}
+
+	/**
+	 * Notify the <code>Observers</code> of a <code>Notification</code> on
+	 * the calling thread.
+	 *
+	 * @param note
+	 *             the <code>Notification</code> to notify
+	 *             <code>Observers</code> of.
+	 * @param name
+	 *             the interned name of the <code>Notification</code>, or
+	 *             <code>null</code> to resolve it from the <code>Notification</code>
+	 */
+	void dispatch(INotification note, NotificationName name) {
         if (note.isLoggingEnabled()) {
             logger.fine(note.toString());
         }
-		List<IObserver> observers_ref = (List<IObserver>) this.observerMap.get(note.getName());
-		if (observers_ref != null) {
-			// Copy observers from reference array to working array,
-            // since the reference array may change during the
-            //note loop
-			Object[] observers = (Object[])observers_ref.toArray();
-
-			// Notify Observers from the working array
+		// Observer lists are immutable snapshots, replaced as a whole by
+		// registerObserver and removeObserver, so they can be walked
+		// directly even if the lists change during the note loop
+		IObserver[] observers = getObservers(note, name);
+		if (observers != null) {
 			for (int i = 0; i < observers.length; i++) {
-				IObserver observer = (IObserver)observers[i];
-				observer.notifyObserver(note);
+				observers[i].notifyObserver(note);
 			}
 		}
 	}
 
+	/**
+	 * Get the current Observer list for a <code>Notification</code>.
+	 *
+	 * <P>
+	 * A <code>Notification</code> created from a <code>NotificationName</code>
+	 * is resolved by its ordinal alone, otherwise its name is looked up
+	 * in the <code>NotificationName</code> registry. A name that was never
+	 * interned is only interned if a prefix observer matches it, so names
+	 * nobody observes do not grow the registry.
+	 * </P>
+	 */
+	private IObserver[] getObservers(INotification note, NotificationName name) {
+		if (name == null && note instanceof Notification) {
+			name = ((Notification) note).getNotificationName();
+		}
+		if (name == null) {
+			name = NotificationName.lookup(note.getName());
+			if (name == null) {
+				WildcardTrie trie = this.wildcards;
+				if (trie == null || !trie.matches(note.getName())) {
+					return null;
+				}
+				name = NotificationName.intern(note.getName());
+			}
+		}
+		ObserverSet observers = getObservers(name.getOrdinal());
+		if (observers == null) {
+			if (this.wildcards == null) {
+				return null;
+			}
+			observers = resolve(name);
+		}
+		return observers.get(note.getType());
+	}
+
+	/**
+	 * Resolve the Observer list of a name that has not been notified since
+	 * prefix observers last changed, merging in the matching prefix
+	 * observers.
+	 */
+	private synchronized ObserverSet resolve(NotificationName name) {
+		int ordinal = name.getOrdinal();
+		ObserverSet observers = getObservers(ordinal);
+		if (observers == null) {
+			observers = ordinal < exactObservers.length ? exactObservers[ordinal] : null;
+			WildcardTrie trie = this.wildcards;
+			if (trie != null) {
+				ObserverSet matched = trie.resolve(name.getName());
+				observers = observers == null ? matched : observers.concat(matched);
+			}
+			if (observers == null) {
+				observers = ObserverSet.EMPTY;
+			}
+			setObservers(ordinal, observers);
+		}
+		return observers;
+	}
+
+	private ObserverSet getObservers(int ordinal) {
+		AtomicReferenceArray<ObserverSet> table = this.observerTable;
+		return ordinal < table.length() ? table.get(ordinal) : null;
+	}
+
+	/**
+	 * Publish a new Observer list snapshot for a <code>Notification</code>
+	 * name ordinal, growing the observer table if needed.
+	 *
+	 * <P>
+	 * Both the table and its slots are published with volatile writes, so
+	 * <code>notifyObservers</code> can read them from any thread without
+	 * locking as long as the callers of this method are serialized.
+	 * </P>
+	 */
+	private void setObservers(int ordinal, ObserverSet observers) {
+		AtomicReferenceArray<ObserverSet> table = this.observerTable;
+		if (ordinal >= table.length()) {
+			if (observers == null) {
+				return;
+			}
+			AtomicReferenceArray<ObserverSet> grown = new AtomicReferenceArray<ObserverSet>(Math.max(ordinal + 1, table.length() * 2));
+			for (int i = 0; i < table.length(); i++) {
+				grown.set(i, table.get(i));
+			}
+			grown.set(ordinal, observers);
+			this.observerTable = grown;
+		} else {
+			table.set(ordinal, observers);
+		}
+	}
+
 	/**
 	 * Remove the observer for a given notifyContext from an observer list for a given Notification name.
 	 * <P>
+	 * Observers of the notifyContext are removed whatever type they were
+	 * registered for.
+	 * <P>
 	 * @param noteName which observer list to remove from
 	 * @param notifyContext remove the observer with this object as its notifyContext
 	 */
-	public void removeObserver(String noteName, Object notifyContext) {
+	public synchronized void removeObserver(String noteName, Object notifyContext) {
+		Set<String> names = registrations.get(notifyContext);
+		if (names != null && names.remove(noteName) && names.isEmpty()) {
+			registrations.remove(notifyContext);
+		}
+		if (WildcardTrie.isPattern(noteName)) {
+			WildcardTrie trie = this.wildcards;
+			if (trie != null) {
+				setWildcards(trie.remove(noteName, notifyContext));
+			}
+			return;
+		}
+		removeExactObserver(noteName, notifyContext);
+	}
+
+	/**
+	 * Remove every observer for a given notifyContext.
+	 * <P>
+	 * Only the names and prefixes the notifyContext was registered for are
+	 * visited, as recorded when its <code>Observers</code> were registered,
+	 * so the cost does not depend on how many other observers there are.
+	 * <code>IObserver</code> implementations other than <code>Observer</code>
+	 * do not expose their notifyContext and must be removed by name.
+	 * <P>
+	 * @param notifyContext remove the observers with this object as their notifyContext
+	 */
+	public synchronized void removeObservers(Object notifyContext) {
+		Set<String> names = registrations.remove(notifyContext);
+		if (names == null) {
+			return;
+		}
+		WildcardTrie trie = this.wildcards;
+		for (String noteName : names) {
+			if (WildcardTrie.isPattern(noteName)) {
+				if (trie != null) {
+					trie = trie.remove(noteName, notifyContext);
+				}
+			} else {
+				removeExactObserver(noteName, notifyContext);
+			}
+		}
+		if (trie != null) {
+			setWildcards(trie);
+		}
+	}
+
+	private void removeExactObserver(String noteName, Object notifyContext) {
+		NotificationName name = NotificationName.lookup(noteName);
+		if (name == null || name.getOrdinal() >= exactObservers.length) {
+			return;
+		}
+		int ordinal = name.getOrdinal();
+
 		// the observer list for the note under inspection
-		List<IObserver> observers = observerMap.get(noteName);
+		ObserverSet observers = exactObservers[ordinal];
 
 		if (observers != null) {
-			// find the observer for the notifyContext
-			for(int i=0;i<observers.size();i++) {
-				Observer observer = (Observer) observers.get(i);
-				if (observer.compareNotifyContext(notifyContext) == true) {
-					observers.remove(observer);
-				}
+			// when a Notification's Observer list length falls to
+			// zero, remove yields null and clears its slot
+			ObserverSet remaining = observers.remove(notifyContext);
+			if (remaining != observers) {
+				setExactObservers(ordinal, remaining);
 			}
-			// Also, when a Notification's Observer list length falls to
-			// zero, delete the note key from the observer map
-			if (observers.size() == 0) {
-				observerMap.remove(noteName);
+		}
+	}
+
+	/**
+	 * Replace the observers of an exact name, and its published Observer
+	 * list, which is left to be resolved again if there are prefix observers.
+	 */
+	private void setExactObservers(int ordinal, ObserverSet observers) {
+		if (ordinal >= exactObservers.length) {
+			ObserverSet[] grown = new ObserverSet[Math.max(ordinal + 1, exactObservers.length * 2)];
+			System.arraycopy(exactObservers, 0, grown, 0, exactObservers.length);
+			exactObservers = grown;
+		}
+		exactObservers[ordinal] = observers;
+		setObservers(ordinal, this.wildcards == null ? observers : null);
+	}
+
+	/**
+	 * Publish a new trie of prefix observers, if it changed, and a new
+	 * observer table: empty, so every name is resolved again, or holding
+	 * the exact observers only once the last prefix observer is gone.
+	 */
+	private void setWildcards(WildcardTrie trie) {
+		if (trie == this.wildcards) {
+			return;
+		}
+		boolean empty = trie.isEmpty();
+		if (!empty) {
+			this.wildcards = trie;
+		}
+		AtomicReferenceArray<ObserverSet> table = new AtomicReferenceArray<ObserverSet>(Math.max(exactObservers.length, this.observerTable.length()));
+		if (empty) {
+			for (int i = 0; i < exactObservers.length; i++) {
+				table.set(i, exactObservers[i]);
 			}
 		}
+		this.observerTable = table;
+		if (empty) {
+			this.wildcards = null;
+		}
 	}
 
 	/**
@@ -175,33 +425,58 @@ public class View implements IView {
 	 *             instance
 	 */
 	public void registerMediator(final IMediator mediator) {
-		if (!this.mediatorMap.containsKey(mediator.getMediatorName())) {
-			mediator.initializeNotifier(multitonKey);
-
-			// Register the Mediator for retrieval by name
-			this.mediatorMap.put(mediator.getMediatorName(), mediator);
-
+		if (putMediator(mediator)) {
             // alert the mediator that it has been registered
             logger.finer("onRegister: " + mediator.getMediatorName());
             mediator.onRegister();
 
-            for (Map.Entry<String, IFunction> entry : mediator.getObservers().entrySet()) {
-                final String notificationName = entry.getKey();
-                final IFunction listener = entry.getValue();
-                IFunction function = new IFunction() {
-                    public void onNotify(INotification note) {
-                        if (note.isLoggingEnabled()) {
-                            logger.finer(mediator.getClass().getSimpleName() + ": Observed " + notificationName);
-                        }
-                        listener.onNotify(note);
-                    }
-                };
-                Observer observer = new Observer(function, mediator);
-                registerObserver(notificationName, observer);
-            }
-		} else {
-            logger.warning("Mediator " + mediator.getMediatorName() + " already registered");
-        }
+            registerInterests(mediator);
+		}
+	}
+
+	/**
+	 * Register a <code>Mediator</code> for retrieval by name, unless
+	 * another one is registered under its name.
+	 *
+	 * @return whether the <code>Mediator</code> was registered
+	 */
+	boolean putMediator(IMediator mediator) {
+		if (this.mediatorMap.containsKey(mediator.getMediatorName())) {
+			logger.warning("Mediator " + mediator.getMediatorName() + " already registered");
+			return false;
+		}
+		mediator.initializeNotifier(multitonKey);
+		this.mediatorMap.put(mediator.getMediatorName(), mediator);
+		return true;
+	}
+
+	/**
+	 * Register the <code>Observers</code> of a registered
+	 * <code>Mediator</code>'s interests.
+	 */
+	void registerInterests(IMediator mediator) {
+		for (Map.Entry<String, IFunction> entry : mediator.getObservers().entrySet()) {
+			registerObserver(entry.getKey(), null, createObserver(mediator, entry.getKey(), entry.getValue()), 0);
+		}
+		if (mediator instanceof Mediator) {
+			for (Subscription subscription : ((Mediator) mediator).getSubscriptions()) {
+				registerObserver(subscription.getNotificationName(), subscription.getType(),
+						createObserver(mediator, subscription.getNotificationName(), subscription.getListener()),
+						subscription.getPriority());
+			}
+		}
+	}
+
+	private Observer createObserver(final IMediator mediator, final String notificationName, final IFunction listener) {
+		IFunction function = new IFunction() {
+			public void onNotify(INotification note) {
+				if (note.isLoggingEnabled()) {
+					logger.finer(mediator.getClass().getSimpleName() + ": Observed " + notificationName);
+				}
+				listener.onNotify(note);
+			}
+		};
+		return new Observer(function, mediator);
 	}
 
 	/**
@@ -215,11 +490,87 @@ public class View implements IView {
 	 *             the <code>Observer</code> to register
 	 */
 	public void registerObserver(String noteName, IObserver observer) {
-		if (this.observerMap.get(noteName) == null) {
-			this.observerMap.put(noteName, new ArrayList<IObserver>());
+		registerObserver(noteName, null, observer, 0);
+	}
+
+	/**
+	 * Register an <code>Observer</code> to be notified of
+	 * <code>INotifications</code> with a given name, with a priority.
+	 *
+	 * @param noteName
+	 *             the name of the <code>Notifications</code> to notify this
+	 *             <code>Observer</code> of
+	 * @param observer
+	 *             the <code>Observer</code> to register
+	 * @param priority
+	 *             observers with a higher priority are notified first,
+	 *             the default being <code>0</code>
+	 */
+	public void registerObserver(String noteName, IObserver observer, int priority) {
+		registerObserver(noteName, null, observer, priority);
+	}
+
+	/**
+	 * Register an <code>Observer</code> to be notified of
+	 * <code>INotifications</code> with a given name and type.
+	 *
+	 * @param noteName
+	 *             the name of the <code>Notifications</code> to notify this
+	 *             <code>Observer</code> of
+	 * @param type
+	 *             the type of the <code>Notifications</code> to notify this
+	 *             <code>Observer</code> of, or <code>null</code> for any type
+	 * @param observer
+	 *             the <code>Observer</code> to register
+	 */
+	public void registerObserver(String noteName, String type, IObserver observer) {
+		registerObserver(noteName, type, observer, 0);
+	}
+
+	/**
+	 * Register an <code>Observer</code> to be notified of
+	 * <code>INotifications</code> with a given name and type.
+	 *
+	 * <P>
+	 * The <code>Observer</code> is indexed by type as well as name, so
+	 * <code>Notifications</code> of other types do not reach it at all.
+	 * Its place in the delivery order is decided here by its priority,
+	 * so notifying remains a walk over a precomputed array.
+	 * </P>
+	 *
+	 * @param noteName
+	 *             the name of the <code>Notifications</code> to notify this
+	 *             <code>Observer</code> of, or a prefix ending with <code>*</code>
+	 * @param type
+	 *             the type of the <code>Notifications</code> to notify this
+	 *             <code>Observer</code> of, or <code>null</code> for any type
+	 * @param observer
+	 *             the <code>Observer</code> to register
+	 * @param priority
+	 *             observers with a higher priority are notified first,
+	 *             observers with the same priority in registration order
+	 */
+	public synchronized void registerObserver(String noteName, String type, IObserver observer, int priority) {
+		if (observer instanceof Observer) {
+			Object notifyContext = ((Observer) observer).getNotifyContext();
+			Set<String> names = registrations.get(notifyContext);
+			if (names == null) {
+				names = new LinkedHashSet<String>();
+				registrations.put(notifyContext, names);
+			}
+			names.add(noteName);
+		}
+		if (WildcardTrie.isPattern(noteName)) {
+			WildcardTrie trie = this.wildcards;
+			setWildcards((trie == null ? WildcardTrie.EMPTY : trie).add(noteName, observer, type, priority));
+			return;
 		}
-		List<IObserver> observers = (List<IObserver>) this.observerMap.get(noteName);
-		observers.add(observer);
+		int ordinal = NotificationName.intern(noteName).getOrdinal();
+
+		// replace the observer list with a new snapshot rather than
+		// mutating the one notifyObservers may be walking
+		ObserverSet observers = ordinal < exactObservers.length ? exactObservers[ordinal] : null;
+		setExactObservers(ordinal, observers == null ? ObserverSet.of(observer, type, priority) : observers.add(observer, type, priority));
 	}
 
 	/**
@@ -229,21 +580,32 @@ public class View implements IView {
 	 *             name of the <code>Mediator</code> instance to be removed.
 	 */
 	public IMediator removeMediator(String mediatorName) {
+		IMediator mediator = takeMediator(mediatorName);
+
+		if(mediator != null) {
+            logger.finer("onRemove: " + mediator.getMediatorName());
+			// alert the mediator that it has been removed
+			mediator.onRemove();
+		}
+		return mediator;
+	}
+
+	/**
+	 * Remove a <code>Mediator</code> and its <code>Observers</code>.
+	 *
+	 * @return the removed <code>Mediator</code>, or <code>null</code>
+	 */
+	IMediator takeMediator(String mediatorName) {
 		// Retrieve the named mediator
 		IMediator mediator = mediatorMap.get(mediatorName);
 
 		if(mediator != null) {
-            for (Map.Entry<String, IFunction> entry : mediator.getObservers().entrySet()) {
-                removeObserver(entry.getKey(), mediator);
-            }
-
+			// remove the observers registered for the mediator, whatever
+			// its interests are by now
+			removeObservers(mediator);
 
 			// remove the mediator from the map
 			mediatorMap.remove(mediatorName);
-
-            logger.finer("onRemove: " + mediator.getMediatorName());
-			// alert the mediator that it has been removed
-			mediator.onRemove();
 		}
 		return mediator;
 	}
@@ -271,12 +633,61 @@ public class View implements IView {
 		return mediatorMap.containsKey(mediatorName);
 	}
 
+	/**
+	 * Deliver this <code>View</code>'s notifications through a ring buffer.
+	 *
+	 * <P>
+	 * The dispatcher's consumer thread is started, and from then on
+	 * <code>notifyObservers</code> only publishes to the ring. A previous
+	 * dispatcher is stopped once it has delivered the notifications already
+	 * published to it.
+	 * </P>
+	 *
+	 * @param dispatcher
+	 *             the <code>RingBufferDispatcher</code>, or <code>null</code>
+	 *             to notify observers on the sending thread again
+	 */
+	public void setDispatcher(RingBufferDispatcher dispatcher) {
+		RingBufferDispatcher previous;
+		synchronized (this) {
+			previous = this.dispatcher;
+			if (previous == dispatcher) {
+				return;
+			}
+			if (dispatcher != null) {
+				dispatcher.start(this);
+			}
+			this.dispatcher = dispatcher;
+		}
+		// wait for the previous consumer outside the lock, since its
+		// observers may still be registering with this View
+		if (previous != null) {
+			previous.halt();
+		}
+	}
+
+	/**
+	 * Get the ring buffer delivering this <code>View</code>'s notifications.
+	 *
+	 * @return the <code>RingBufferDispatcher</code>, or <code>null</code>
+	 *         if observers are notified on the sending thread
+	 */
+	public RingBufferDispatcher getDispatcher() {
+		return this.dispatcher;
+	}
+
 	/**
 	 * Remove an IView instance
 	 *
 	 * @param multitonKey of IView instance to remove
 	 */
-	public synchronized static void removeView(String key) {
-		instanceMap.remove(key);
+	public static void removeView(String key) {
+		View view;
+		synchronized (View.class) {
+			view = instanceMap.remove(key);
+		}
+		if (view != null) {
+			view.setDispatcher(null);
+		}
 	}
 }
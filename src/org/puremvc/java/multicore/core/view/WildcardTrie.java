@@ -0,0 +1,182 @@
+/* 
+ PureMVC Java MultiCore Port by Ima OpenSource <opensource@ima.eu>
+ Maintained by Anthony Quinault <anthony.quinault@puremvc.org>
+ PureMVC - Copyright(c) 2006-08 Futurescale, Inc., Some rights reserved. 
+ Your reuse is governed by the Creative Commons Attribution 3.0 License 
+ */
+package org.puremvc.java.multicore.core.view;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.puremvc.java.multicore.interfaces.IObserver;
+
+/**
+ * A trie of the observers registered for <code>INotification</code> name
+ * prefixes.
+ *
+ * <P>
+ * A pattern is a name ending with <code>*</code>, which matches every name
+ * starting with the characters before it: <code>order.fill.*</code>
+ * matches <code>order.fill.partial</code>, and <code>*</code> matches
+ * every name. Resolving a name walks the trie once along its characters,
+ * merging the observers of every pattern on the way by priority.
+ * </P>
+ *
+ * <P>
+ * A trie is immutable: adding or removing observers returns a new trie
+ * sharing the unchanged nodes, so it can be walked from any thread
+ * without locking.
+ * </P>
+ */
+final class WildcardTrie {
+
+	static final WildcardTrie EMPTY = new WildcardTrie(Node.EMPTY, 0);
+
+	private final Node root;
+
+	// number of nodes holding observers
+	private final int patterns;
+
+	private WildcardTrie(Node root, int patterns) {
+		this.root = root;
+		this.patterns = patterns;
+	}
+
+	/**
+	 * Check whether a name is a prefix pattern.
+	 */
+	static boolean isPattern(String name) {
+		return name.endsWith("*");
+	}
+
+	boolean isEmpty() {
+		return patterns == 0;
+	}
+
+	/**
+	 * Add an observer to a pattern.
+	 *
+	 * @return the new trie
+	 */
+	WildcardTrie add(String pattern, IObserver observer, String type, int priority) {
+		Node node = find(pattern);
+		if (node == null || node.observers == null) {
+			return new WildcardTrie(replace(root, pattern, 0, ObserverSet.of(observer, type, priority)), patterns + 1);
+		}
+		return new WildcardTrie(replace(root, pattern, 0, node.observers.add(observer, type, priority)), patterns);
+	}
+
+	/**
+	 * Remove the observers of a notify context from a pattern.
+	 *
+	 * @return the new trie, or this one if no observer was removed
+	 */
+	WildcardTrie remove(String pattern, Object notifyContext) {
+		Node node = find(pattern);
+		if (node == null || node.observers == null) {
+			return this;
+		}
+		ObserverSet remaining = node.observers.remove(notifyContext);
+		if (remaining == node.observers) {
+			return this;
+		}
+		return new WildcardTrie(replace(root, pattern, 0, remaining), remaining == null ? patterns - 1 : patterns);
+	}
+
+	private Node find(String pattern) {
+		Node node = root;
+		for (int i = 0; i < pattern.length() - 1 && node != null; i++) {
+			node = node.child(pattern.charAt(i));
+		}
+		return node;
+	}
+
+	/**
+	 * Copy the path to a pattern, with new observers at its end, dropping
+	 * the nodes left empty.
+	 *
+	 * @return the copied node, or {@link Node#EMPTY} if it is empty
+	 */
+	private static Node replace(Node node, String pattern, int depth, ObserverSet observers) {
+		if (node == null) {
+			node = Node.EMPTY;
+		}
+		if (depth == pattern.length() - 1) {
+			return node.withObservers(observers);
+		}
+		char c = pattern.charAt(depth);
+		return node.withChild(c, replace(node.child(c), pattern, depth + 1, observers));
+	}
+
+	/**
+	 * Check whether any pattern matches a name.
+	 */
+	boolean matches(String name) {
+		Node node = root;
+		for (int i = 0; node.observers == null && i < name.length(); i++) {
+			node = node.child(name.charAt(i));
+			if (node == null) {
+				return false;
+			}
+		}
+		return node.observers != null;
+	}
+
+	/**
+	 * Collect the observers of every pattern matching a name.
+	 *
+	 * @return the matching observers, or <code>null</code> if there are none
+	 */
+	ObserverSet resolve(String name) {
+		ObserverSet matched = root.observers;
+		Node node = root;
+		for (int i = 0; i < name.length(); i++) {
+			node = node.child(name.charAt(i));
+			if (node == null) {
+				break;
+			}
+			if (node.observers != null) {
+				matched = matched == null ? node.observers : matched.concat(node.observers);
+			}
+		}
+		return matched;
+	}
+
+	private static final class Node {
+
+		static final Node EMPTY = new Node(null, null);
+
+		// never modified once the node is created, null if there are none
+		private final Map<Character, Node> children;
+
+		final ObserverSet observers;
+
+		Node(Map<Character, Node> children, ObserverSet observers) {
+			this.children = children;
+			this.observers = observers;
+		}
+
+		Node child(char c) {
+			return children == null ? null : children.get(Character.valueOf(c));
+		}
+
+		Node withObservers(ObserverSet observers) {
+			return create(children, observers);
+		}
+
+		Node withChild(char c, Node child) {
+			Map<Character, Node> copy = children == null ? new HashMap<Character, Node>() : new HashMap<Character, Node>(children);
+			if (child == EMPTY) {
+				copy.remove(Character.valueOf(c));
+			} else {
+				copy.put(Character.valueOf(c), child);
+			}
+			return create(copy.isEmpty() ? null : copy, observers);
+		}
+
+		private static Node create(Map<Character, Node> children, ObserverSet observers) {
+			return children == null && observers == null ? EMPTY : new Node(children, observers);
+		}
+	}
+}
@@ -0,0 +1,37 @@
+/* 
+ PureMVC Java MultiCore Port by Ima OpenSource <opensource@ima.eu>
+ Maintained by Anthony Quinault <anthony.quinault@puremvc.org>
+ PureMVC - Copyright(c) 2006-08 Futurescale, Inc., Some rights reserved. 
+ Your reuse is governed by the Creative Commons Attribution 3.0 License 
+ */
+package org.puremvc.java.multicore.interfaces;
+
+/**
+ * The interface definition for a PureMVC Command producing a result,
+ * which the <code>Controller</code> may run off the notifying thread.
+ *
+ * <P>
+ * When the <code>Controller</code> has a command <code>Executor</code>,
+ * it submits <code>call</code> to it instead of calling
+ * <code>execute</code> on the thread that sent the
+ * <code>INotification</code>, so commands waiting on I/O do not hold up
+ * the other observers of the Core. The result, or the exception thrown,
+ * is made available to the sender of a <code>ResultNotification</code>.
+ * </P>
+ *
+ * @see org.puremvc.java.multicore.core.controller.Controller Controller
+ * @see org.puremvc.java.multicore.patterns.observer.ResultNotification ResultNotification
+ */
+public interface IAsyncCommand extends ICommand {
+
+	/**
+	 * Handle a given <code>INotification</code> and compute a result.
+	 *
+	 * @param note
+	 *            an <code>INotification</code> to handle.
+	 * @return the result of the command, or <code>null</code>
+	 * @throws Exception
+	 *             if the command fails
+	 */
+	public Object call(INotification note) throws Exception;
+}
@@ -0,0 +1,28 @@
+/* 
+ PureMVC Java MultiCore Port by Ima OpenSource <opensource@ima.eu>
+ Maintained by Anthony Quinault <anthony.quinault@puremvc.org>
+ PureMVC - Copyright(c) 2006-08 Futurescale, Inc., Some rights reserved. 
+ Your reuse is governed by the Creative Commons Attribution 3.0 License 
+ */
+package org.puremvc.java.multicore.interfaces;
+
+/**
+ * The interface definition for a factory of <code>ICommand</code>s.
+ *
+ * <P>
+ * The <code>IController</code> asks its factory for a new
+ * <code>ICommand</code> each time the <code>INotification</code> it was
+ * registered for is sent.
+ * </P>
+ *
+ * @see org.puremvc.java.multicore.interfaces.IController IController
+ */
+public interface ICommandFactory {
+
+	/**
+	 * Create the <code>ICommand</code> that handles an <code>INotification</code>.
+	 *
+	 * @return a new <code>ICommand</code> instance
+	 */
+	public ICommand createCommand();
+}
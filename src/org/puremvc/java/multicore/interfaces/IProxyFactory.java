@@ -0,0 +1,28 @@
+/* 
+ PureMVC Java MultiCore Port by Ima OpenSource <opensource@ima.eu>
+ Maintained by Anthony Quinault <anthony.quinault@puremvc.org>
+ PureMVC - Copyright(c) 2006-08 Futurescale, Inc., Some rights reserved. 
+ Your reuse is governed by the Creative Commons Attribution 3.0 License 
+ */
+package org.puremvc.java.multicore.interfaces;
+
+/**
+ * The interface definition for a factory of an <code>IProxy</code>.
+ *
+ * <P>
+ * The <code>Model</code> calls its factory the first time the
+ * <code>IProxy</code> is retrieved, so proxies that are never used are
+ * never created.
+ * </P>
+ *
+ * @see org.puremvc.java.multicore.core.model.Model#registerProxyFactory(String, IProxyFactory) Model.registerProxyFactory
+ */
+public interface IProxyFactory {
+
+	/**
+	 * Create the <code>IProxy</code>.
+	 *
+	 * @return a new <code>IProxy</code>, with the name it was registered under
+	 */
+	public IProxy createProxy();
+}
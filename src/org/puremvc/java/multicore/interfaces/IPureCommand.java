@@ -0,0 +1,27 @@
+/* 
+ PureMVC Java MultiCore Port by Ima OpenSource <opensource@ima.eu>
+ Maintained by Anthony Quinault <anthony.quinault@puremvc.org>
+ PureMVC - Copyright(c) 2006-08 Futurescale, Inc., Some rights reserved. 
+ Your reuse is governed by the Creative Commons Attribution 3.0 License 
+ */
+package org.puremvc.java.multicore.interfaces;
+
+/**
+ * The interface definition for a PureMVC Command whose outcome depends
+ * only on the name, body and type of the <code>INotification</code>.
+ *
+ * <P>
+ * When memoization is enabled on the <code>Controller</code>, a pure
+ * command is executed once for each distinct name, body and type, and is
+ * skipped for the identical <code>INotification</code>s that follow,
+ * which get the <code>Future</code> of the first execution if they are
+ * <code>ResultNotification</code>s. The bodies must therefore implement
+ * <code>equals</code> and <code>hashCode</code> and must not change once
+ * sent, and the command must have no other effect that needs repeating.
+ * </P>
+ *
+ * @see org.puremvc.java.multicore.core.controller.Controller Controller
+ * @see org.puremvc.java.multicore.interfaces.IAsyncCommand IAsyncCommand
+ */
+public interface IPureCommand extends ICommand {
+}
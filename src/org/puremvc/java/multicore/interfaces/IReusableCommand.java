@@ -0,0 +1,31 @@
+/* 
+ PureMVC Java MultiCore Port by Ima OpenSource <opensource@ima.eu>
+ Maintained by Anthony Quinault <anthony.quinault@puremvc.org>
+ PureMVC - Copyright(c) 2006-08 Futurescale, Inc., Some rights reserved. 
+ Your reuse is governed by the Creative Commons Attribution 3.0 License 
+ */
+package org.puremvc.java.multicore.interfaces;
+
+/**
+ * The interface definition for a stateless PureMVC Command.
+ *
+ * <P>
+ * The <code>Controller</code> creates and initializes one instance of an
+ * <code>IReusableCommand</code> class per Core, when the class is
+ * registered, and executes that same instance for every
+ * <code>INotification</code> instead of creating a new one each time.
+ * </P>
+ *
+ * <P>
+ * Because the instance is shared, <code>execute</code> must not keep
+ * per-notification state in fields. When notifications are sent from
+ * several threads, for instance with <code>sendNotificationAsync</code> or
+ * a <code>ConcurrentView</code>, the instance may execute concurrently,
+ * so any field it does use must be immutable or thread-safe. A
+ * <code>MacroCommand</code>, which holds its sub-commands, is not reusable.
+ * </P>
+ *
+ * @see org.puremvc.java.multicore.core.controller.Controller Controller
+ */
+public interface IReusableCommand extends ICommand {
+}
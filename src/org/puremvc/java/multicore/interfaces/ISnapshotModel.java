@@ -0,0 +1,42 @@
+/* 
+ PureMVC Java MultiCore Port by Ima OpenSource <opensource@ima.eu>
+ Maintained by Anthony Quinault <anthony.quinault@puremvc.org>
+ PureMVC - Copyright(c) 2006-08 Futurescale, Inc., Some rights reserved. 
+ Your reuse is governed by the Creative Commons Attribution 3.0 License 
+ */
+package org.puremvc.java.multicore.interfaces;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * The interface definition for an <code>IModel</code> that can save the
+ * data of its <code>ISnapshotProxy</code>s to a snapshot, and restore it.
+ *
+ * @see org.puremvc.java.multicore.interfaces.ISnapshotProxy ISnapshotProxy
+ */
+public interface ISnapshotModel extends IModel {
+
+	/**
+	 * Save the data of the registered <code>ISnapshotProxy</code>s to a
+	 * binary snapshot.
+	 *
+	 * @param out
+	 *            the stream the snapshot is written to
+	 * @throws IOException
+	 *             if the snapshot cannot be written
+	 */
+	public void saveSnapshot(OutputStream out) throws IOException;
+
+	/**
+	 * Restore the data of <code>ISnapshotProxy</code>s from a snapshot,
+	 * now for the registered ones and on registration for the others.
+	 *
+	 * @param in
+	 *            the stream the snapshot is read from
+	 * @throws IOException
+	 *             if the snapshot cannot be read
+	 */
+	public void restoreSnapshot(InputStream in) throws IOException;
+}
@@ -0,0 +1,49 @@
+/* 
+ PureMVC Java MultiCore Port by Ima OpenSource <opensource@ima.eu>
+ Maintained by Anthony Quinault <anthony.quinault@puremvc.org>
+ PureMVC - Copyright(c) 2006-08 Futurescale, Inc., Some rights reserved. 
+ Your reuse is governed by the Creative Commons Attribution 3.0 License 
+ */
+package org.puremvc.java.multicore.interfaces;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * The interface definition for an <code>IProxy</code> whose data can be
+ * saved to, and restored from, a snapshot of its <code>ISnapshotModel</code>.
+ *
+ * <P>
+ * A Core restoring a snapshot at startup starts with the data its proxies
+ * had when the snapshot was saved, instead of loading it again from its
+ * services. The <code>IModel</code> restores a proxy registered after the
+ * snapshot was read when it is registered, before its
+ * <code>onRegister</code> is called.
+ * </P>
+ *
+ * @see org.puremvc.java.multicore.interfaces.ISnapshotModel ISnapshotModel
+ */
+public interface ISnapshotProxy extends IProxy {
+
+	/**
+	 * Write the data of the <code>IProxy</code>.
+	 *
+	 * @param out
+	 *            the snapshot of this <code>IProxy</code>
+	 * @throws IOException
+	 *             if the snapshot cannot be written
+	 */
+	public void writeSnapshot(DataOutput out) throws IOException;
+
+	/**
+	 * Replace the data of the <code>IProxy</code> with a snapshot written by
+	 * <code>writeSnapshot</code>.
+	 *
+	 * @param in
+	 *            the snapshot of this <code>IProxy</code>
+	 * @throws IOException
+	 *             if the snapshot cannot be read
+	 */
+	public void readSnapshot(DataInput in) throws IOException;
+}
@@ -38,9 +38,18 @@ public interface IView {
 	 * Register an <code>IObserver</code> to be notified of
 	 * <code>INotifications</code> with a given name.
 	 *
+	 * <P>
+	 * A name ending with <code>*</code> registers the
+	 * <code>IObserver</code> for every name starting with the characters
+	 * before it. Such a name is always a prefix: an <code>IObserver</code>
+	 * cannot be registered for a literal name ending with <code>*</code>,
+	 * as it could before prefixes were supported.
+	 * </P>
+	 *
 	 * @param noteName
 	 *            the name of the <code>INotifications</code> to notify this
-	 *            <code>IObserver</code> of
+	 *            <code>IObserver</code> of, or a prefix ending with
+	 *            <code>*</code>
 	 * @param observer
 	 *            the <code>IObserver</code> to register
 	 */
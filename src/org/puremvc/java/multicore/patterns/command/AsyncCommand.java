@@ -0,0 +1,55 @@
+/* 
+ PureMVC Java MultiCore Port by Ima OpenSource <opensource@ima.eu>
+ Maintained by Anthony Quinault <anthony.quinault@puremvc.org>
+ PureMVC - Copyright(c) 2006-08 Futurescale, Inc., Some rights reserved. 
+ Your reuse is governed by the Creative Commons Attribution 3.0 License 
+ */
+package org.puremvc.java.multicore.patterns.command;
+
+import org.puremvc.java.multicore.interfaces.IAsyncCommand;
+import org.puremvc.java.multicore.interfaces.INotification;
+
+/**
+ * A base <code>IAsyncCommand</code> implementation.
+ *
+ * <P>
+ * Your subclass should override the <code>call</code> method where your
+ * business logic will handle the <code>INotification</code> and compute
+ * its result. <code>execute</code> calls it on the current thread, as
+ * when the command is a sub-command of a <code>MacroCommand</code>.
+ * </P>
+ *
+ * @see org.puremvc.java.multicore.core.controller.Controller Controller
+ * @see org.puremvc.java.multicore.patterns.observer.ResultNotification ResultNotification
+ */
+public abstract class AsyncCommand extends SimpleCommand implements IAsyncCommand {
+
+	/**
+	 * Handle the <code>INotification</code> on the current thread,
+	 * discarding the result.
+	 *
+	 * @param note
+	 *            the <code>INotification</code> to handle.
+	 */
+	public void execute(INotification note) {
+		try {
+			call(note);
+		} catch (RuntimeException e) {
+			throw e;
+		} catch (Exception e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	/**
+	 * Fulfill the use-case initiated by the given <code>INotification</code>
+	 * and compute its result.
+	 *
+	 * @param note
+	 *            the <code>INotification</code> to handle.
+	 * @return the result of the command, or <code>null</code>
+	 * @throws Exception
+	 *             if the command fails
+	 */
+	public abstract Object call(INotification note) throws Exception;
+}
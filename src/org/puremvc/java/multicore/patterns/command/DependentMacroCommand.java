@@ -0,0 +1,247 @@
+/* 
+ PureMVC Java MultiCore Port by Ima OpenSource <opensource@ima.eu>
+ Maintained by Anthony Quinault <anthony.quinault@puremvc.org>
+ PureMVC - Copyright(c) 2006-08 Futurescale, Inc., Some rights reserved. 
+ Your reuse is governed by the Creative Commons Attribution 3.0 License 
+ */
+package org.puremvc.java.multicore.patterns.command;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.puremvc.java.multicore.interfaces.ICommand;
+import org.puremvc.java.multicore.interfaces.INotification;
+
+/**
+ * A <code>MacroCommand</code> whose <i>SubCommands</i> declare the
+ * <i>SubCommands</i> they depend on.
+ *
+ * <P>
+ * Each <i>SubCommand</i> is added under a name, with the names of its
+ * prerequisites. When <code>execute</code> is called, the
+ * <i>SubCommands</i> without prerequisites are submitted to the
+ * <code>Executor</code> at once, and every other one as soon as its last
+ * prerequisite has completed, so independent branches run concurrently
+ * and the macro takes about as long as its longest chain of dependencies.
+ * <code>execute</code> returns once all of them have run.
+ * </P>
+ *
+ * <listing>
+ *		protected void initializeMacroCommand() {
+ *			addSubCommand("config", new LoadConfigCommand());
+ *			addSubCommand("model", new PrepModelCommand(), "config");
+ *			addSubCommand("view", new PrepViewCommand(), "config");
+ *			addSubCommand("start", new StartCommand(), "model", "view");
+ *		}
+ * </listing>
+ *
+ * <P>
+ * If a <i>SubCommand</i> throws, the <i>SubCommands</i> not yet started
+ * are skipped and the failure is rethrown by <code>execute</code>.
+ * Unknown prerequisites and dependency cycles are reported by
+ * <code>execute</code> with an <code>IllegalStateException</code>, before
+ * any <i>SubCommand</i> runs.
+ * </P>
+ *
+ * @see org.puremvc.java.multicore.patterns.command.ParallelMacroCommand ParallelMacroCommand
+ */
+public class DependentMacroCommand extends ParallelMacroCommand {
+
+	// not initialized here, since initializeMacroCommand runs in the
+	// super constructor, before field initializers
+	private List<String> names;
+
+	private List<ICommand> commands;
+
+	private List<String[]> prerequisites;
+
+	/**
+	 * Add a named <i>SubCommand</i> and its prerequisites.
+	 *
+	 * @param name
+	 *            the name other <i>SubCommands</i> refer to this one by,
+	 *            or <code>null</code>
+	 * @param command
+	 *            the <i>SubCommand</i>
+	 * @param prerequisites
+	 *            the names of the <i>SubCommands</i> that must complete
+	 *            before this one runs
+	 * @throws IllegalArgumentException
+	 *             if a <i>SubCommand</i> was already added with this name
+	 */
+	protected void addSubCommand(String name, ICommand command, String... prerequisites) {
+		if (this.names == null) {
+			this.names = new ArrayList<String>();
+			this.commands = new ArrayList<ICommand>();
+			this.prerequisites = new ArrayList<String[]>();
+		}
+		if (name != null && this.names.contains(name)) {
+			throw new IllegalArgumentException("SubCommand " + name + " already added");
+		}
+		this.names.add(name);
+		this.commands.add(command);
+		this.prerequisites.add(prerequisites);
+	}
+
+	/**
+	 * Add an unnamed <i>SubCommand</i> without prerequisites.
+	 *
+	 * @param commandClassRef
+	 *            the <i>SubCommand</i>
+	 */
+	protected void addSubCommand(ICommand commandClassRef) {
+		addSubCommand(null, commandClassRef);
+	}
+
+	/**
+	 * Execute this <code>MacroCommand</code>'s <i>SubCommands</i> in
+	 * dependency order, and wait for them to complete.
+	 *
+	 * @param note
+	 *            the <code>INotification</code> object to be passsed to each
+	 *            <i>SubCommand</i>.
+	 * @throws IllegalStateException
+	 *             if a prerequisite is unknown or the dependencies are cyclic
+	 */
+	public void execute(INotification note) {
+		if (this.commands == null || this.commands.isEmpty()) {
+			return;
+		}
+		new Run(note).start();
+	}
+
+	/**
+	 * Resolve the dependents of each <i>SubCommand</i>, by index.
+	 */
+	private int[][] resolveDependents() {
+		int count = commands.size();
+		Map<String, Integer> indexes = new HashMap<String, Integer>();
+		for (int i = 0; i < count; i++) {
+			if (names.get(i) != null) {
+				indexes.put(names.get(i), Integer.valueOf(i));
+			}
+		}
+		List<List<Integer>> dependents = new ArrayList<List<Integer>>();
+		for (int i = 0; i < count; i++) {
+			dependents.add(new ArrayList<Integer>());
+		}
+		for (int i = 0; i < count; i++) {
+			for (String prerequisite : prerequisites.get(i)) {
+				Integer index = indexes.get(prerequisite);
+				if (index == null) {
+					throw new IllegalStateException("Unknown prerequisite " + prerequisite + " of SubCommand " + names.get(i));
+				}
+				dependents.get(index.intValue()).add(Integer.valueOf(i));
+			}
+		}
+		int[][] resolved = new int[count][];
+		for (int i = 0; i < count; i++) {
+			List<Integer> list = dependents.get(i);
+			resolved[i] = new int[list.size()];
+			for (int j = 0; j < resolved[i].length; j++) {
+				resolved[i][j] = list.get(j).intValue();
+			}
+		}
+		return resolved;
+	}
+
+	/**
+	 * Check that every <i>SubCommand</i> can run, by walking the graph in
+	 * dependency order.
+	 */
+	private void checkAcyclic(int[][] dependents) {
+		int count = dependents.length;
+		int[] pending = new int[count];
+		for (int i = 0; i < count; i++) {
+			pending[i] = prerequisites.get(i).length;
+		}
+		int[] ready = new int[count];
+		int readyCount = 0;
+		for (int i = 0; i < count; i++) {
+			if (pending[i] == 0) {
+				ready[readyCount++] = i;
+			}
+		}
+		for (int next = 0; next < readyCount; next++) {
+			for (int dependent : dependents[ready[next]]) {
+				if (--pending[dependent] == 0) {
+					ready[readyCount++] = dependent;
+				}
+			}
+		}
+		if (readyCount < count) {
+			throw new IllegalStateException("Cyclic SubCommand dependencies in " + getClass().getName());
+		}
+	}
+
+	/**
+	 * The state of one execution of the graph.
+	 */
+	private final class Run {
+
+		private final INotification note;
+
+		private final int[][] dependents;
+
+		// prerequisites not yet completed, by SubCommand index
+		private final AtomicIntegerArray pending;
+
+		private final CountDownLatch done;
+
+		private final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+
+		private final Executor executor = getExecutor();
+
+		Run(INotification note) {
+			this.note = note;
+			this.dependents = resolveDependents();
+			checkAcyclic(dependents);
+			this.pending = new AtomicIntegerArray(dependents.length);
+			for (int i = 0; i < dependents.length; i++) {
+				pending.set(i, prerequisites.get(i).length);
+			}
+			this.done = new CountDownLatch(dependents.length);
+		}
+
+		void start() {
+			for (int i = 0; i < dependents.length; i++) {
+				if (pending.get(i) == 0) {
+					schedule(i);
+				}
+			}
+			await(done);
+			rethrow(failure.get());
+		}
+
+		private void schedule(final int index) {
+			submit(executor, new Runnable() {
+				public void run() {
+					complete(index);
+				}
+			});
+		}
+
+		private void complete(int index) {
+			try {
+				if (failure.get() == null) {
+					executeSubCommand(commands.get(index), note);
+				}
+			} catch (Throwable t) {
+				failure.compareAndSet(null, t);
+			} finally {
+				done.countDown();
+			}
+			for (int dependent : dependents[index]) {
+				if (pending.decrementAndGet(dependent) == 0) {
+					schedule(dependent);
+				}
+			}
+		}
+	}
+}
@@ -105,6 +105,15 @@ public class MacroCommand extends Notifier implements ICommand {
 		this.subCommands.add(commandClassRef);
 	}
 
+	/**
+	 * Get the <i>SubCommands</i>, in the order they were added.
+	 *
+	 * @return the <i>SubCommands</i> of this <code>MacroCommand</code>
+	 */
+	protected Collection<ICommand> getSubCommands() {
+		return this.subCommands;
+	}
+
 	/**
 	 * Execute this <code>MacroCommand</code>'s <i>SubCommands</i>.
 	 *
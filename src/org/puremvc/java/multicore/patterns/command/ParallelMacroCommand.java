@@ -0,0 +1,157 @@
+/* 
+ PureMVC Java MultiCore Port by Ima OpenSource <opensource@ima.eu>
+ Maintained by Anthony Quinault <anthony.quinault@puremvc.org>
+ PureMVC - Copyright(c) 2006-08 Futurescale, Inc., Some rights reserved. 
+ Your reuse is governed by the Creative Commons Attribution 3.0 License 
+ */
+package org.puremvc.java.multicore.patterns.command;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.puremvc.java.multicore.interfaces.ICommand;
+import org.puremvc.java.multicore.interfaces.INotification;
+
+/**
+ * A <code>MacroCommand</code> that executes its <i>SubCommands</i>
+ * concurrently.
+ *
+ * <P>
+ * When <code>execute</code> is called, every <i>SubCommand</i> but the
+ * last is submitted to the <code>Executor</code> and the last one runs on
+ * the calling thread. <code>execute</code> returns once all of them have
+ * completed, so the macro takes as long as its slowest <i>SubCommand</i>
+ * rather than the sum of them. If any <i>SubCommand</i> throws, the first
+ * failure is rethrown by <code>execute</code> after the others complete.
+ * </P>
+ *
+ * <P>
+ * The <i>SubCommands</i> must be independent of each other and safe to
+ * run concurrently. Use a <code>DependentMacroCommand</code> when some of
+ * them must wait for others.
+ * </P>
+ *
+ * @see org.puremvc.java.multicore.patterns.command.MacroCommand MacroCommand
+ * @see org.puremvc.java.multicore.patterns.command.DependentMacroCommand DependentMacroCommand
+ */
+public class ParallelMacroCommand extends MacroCommand {
+
+	private static ExecutorService defaultExecutor;
+
+	/**
+	 * The <code>Executor</code> shared by parallel macro commands, a cached
+	 * pool of daemon threads, so nested macros never wait for a free thread.
+	 *
+	 * @return the default <code>Executor</code>
+	 */
+	public synchronized static Executor getDefaultExecutor() {
+		if (defaultExecutor == null) {
+			defaultExecutor = Executors.newCachedThreadPool(new ThreadFactory() {
+				public Thread newThread(Runnable runnable) {
+					Thread thread = new Thread(runnable, "PureMVC-MacroCommand");
+					thread.setDaemon(true);
+					return thread;
+				}
+			});
+		}
+		return defaultExecutor;
+	}
+
+	/**
+	 * Get the <code>Executor</code> running the <i>SubCommands</i>.
+	 *
+	 * <P>
+	 * Override to run them on an application <code>Executor</code>.
+	 * </P>
+	 *
+	 * @return the <code>Executor</code>, the shared default one unless overridden
+	 */
+	protected Executor getExecutor() {
+		return getDefaultExecutor();
+	}
+
+	/**
+	 * Execute this <code>MacroCommand</code>'s <i>SubCommands</i>
+	 * concurrently, and wait for them to complete.
+	 *
+	 * @param note
+	 *            the <code>INotification</code> object to be passsed to each
+	 *            <i>SubCommand</i>.
+	 */
+	public void execute(final INotification note) {
+		ICommand[] commands = getSubCommands().toArray(new ICommand[0]);
+		if (commands.length == 0) {
+			return;
+		}
+		final CountDownLatch done = new CountDownLatch(commands.length);
+		final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+		Executor executor = getExecutor();
+		for (int i = 0; i < commands.length; i++) {
+			final ICommand command = commands[i];
+			Runnable task = new Runnable() {
+				public void run() {
+					try {
+						executeSubCommand(command, note);
+					} catch (Throwable t) {
+						failure.compareAndSet(null, t);
+					} finally {
+						done.countDown();
+					}
+				}
+			};
+			if (i == commands.length - 1) {
+				task.run();
+			} else {
+				submit(executor, task);
+			}
+		}
+		await(done);
+		rethrow(failure.get());
+	}
+
+	/**
+	 * Initialize and execute a <i>SubCommand</i>.
+	 */
+	void executeSubCommand(ICommand command, INotification note) {
+		command.initializeNotifier(multitonKey);
+		command.execute(note);
+	}
+
+	/**
+	 * Run a task on the <code>Executor</code>, or on the calling thread if
+	 * the <code>Executor</code> rejects it.
+	 */
+	static void submit(Executor executor, Runnable task) {
+		try {
+			executor.execute(task);
+		} catch (RejectedExecutionException e) {
+			task.run();
+		}
+	}
+
+	static void await(CountDownLatch done) {
+		try {
+			done.await();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new RuntimeException("Interrupted while waiting for sub-commands", e);
+		}
+	}
+
+	static void rethrow(Throwable failure) {
+		if (failure instanceof RuntimeException) {
+			throw (RuntimeException) failure;
+		}
+		if (failure instanceof Error) {
+			throw (Error) failure;
+		}
+		if (failure != null) {
+			throw new RuntimeException(failure);
+		}
+	}
+}
@@ -6,14 +6,29 @@
  */
 package org.puremvc.java.multicore.patterns.facade;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
 import org.puremvc.java.multicore.core.controller.Controller;
 import org.puremvc.java.multicore.core.model.Model;
 import org.puremvc.java.multicore.core.view.View;
 import org.puremvc.java.multicore.interfaces.*;
 import org.puremvc.java.multicore.patterns.observer.Notification;
+import org.puremvc.java.multicore.patterns.observer.NotificationCoalescer;
+import org.puremvc.java.multicore.patterns.observer.NotificationName;
+import org.puremvc.java.multicore.patterns.observer.NotificationQueue;
+import org.puremvc.java.multicore.patterns.observer.ResultNotification;
 
 /**
  * A base Multiton <code>IFacade</code> implementation.
@@ -24,6 +39,10 @@ import org.puremvc.java.multicore.patterns.observer.Notification;
  */
 public class Facade implements IFacade {
 
+	private final static Logger logger = Logger.getLogger(Facade.class.getName());
+
+	private static final int SNAPSHOT_BUFFER_SIZE = 64 * 1024;
+
 	/**
 	 * Reference to the Controller
 	 */
@@ -46,6 +65,16 @@ public class Facade implements IFacade {
 
 	protected static Map<String, Facade> instanceMap = new HashMap<String, Facade>();
 
+	/**
+	 * Queue of notifications sent asynchronously by this Core
+	 */
+	private final NotificationQueue notificationQueue = new NotificationQueue(this);
+
+	/**
+	 * Pending coalescable notifications, while coalescing is enabled
+	 */
+	private volatile NotificationCoalescer coalescer = null;
+
     /**
      * Default Constructor.
      *
@@ -85,11 +114,23 @@ public class Facade implements IFacade {
 	 * Called automatically by the constructor. Override in your
 	 * subclass to do any subclass specific initializations. Be
 	 * sure to call <code>super.initializeFacade()</code>, though.</P>
+	 *
+	 * <P>
+	 * The <code>View</code> is initialized before the <code>Controller</code>,
+	 * since the <code>Controller</code> registers its command observers
+	 * with whichever <code>IView</code> <code>initializeView</code>
+	 * selected for this Core.</P>
+	 *
+	 * <P>
+	 * The snapshot of the <code>Model</code> is restored right after the
+	 * <code>Model</code> is initialized, so that the proxies registered
+	 * later on start with their saved data.</P>
 	 */
 	protected void initializeFacade() {
 		initializeModel();
-		initializeController();
+		initializeSnapshot();
 		initializeView();
+		initializeController();
 	}
 
 	/**
@@ -162,6 +203,46 @@ public class Facade implements IFacade {
 		this.model = Model.getInstance(multitonKey);
 	}
 
+	/**
+	 * Get the file the snapshot of this Core's <code>Model</code> is
+	 * restored from at startup.
+	 *
+	 * <P>
+	 * Override it to warm-start the Core from a snapshot saved with
+	 * <code>saveSnapshot</code>. It is called during construction, so it
+	 * should only rely on the Multiton key.
+	 * </P>
+	 *
+	 * @return the snapshot file, or <code>null</code> for none
+	 */
+	protected File getSnapshotFile() {
+		return null;
+	}
+
+	/**
+	 * Restore the snapshot of the <code>Model</code> from
+	 * <code>getSnapshotFile</code>, if that file exists.
+	 *
+	 * <P>
+	 * Called by the <code>initializeFacade</code> method. A snapshot that
+	 * cannot be read is logged and ignored, leaving the proxies to load
+	 * their data as usual.
+	 * </P>
+	 */
+	protected void initializeSnapshot() {
+		File file = getSnapshotFile();
+		if (file == null || !file.exists()) {
+			return;
+		}
+		try {
+			restoreSnapshot(file);
+		} catch (IOException e) {
+			logger.log(Level.WARNING, "Failed to restore snapshot " + file, e);
+		} catch (RuntimeException e) {
+			logger.log(Level.WARNING, "Failed to restore snapshot " + file, e);
+		}
+	}
+
 	/**
 	 * Initialize the <code>View</code>.
 	 *
@@ -170,7 +251,9 @@ public class Facade implements IFacade {
 	 * method in your subclass of <code>Facade</code> if one or both of the
 	 * following are true:
 	 * <UL>
-	 * <LI> You wish to initialize a different <code>IView</code>.</LI>
+	 * <LI> You wish to initialize a different <code>IView</code>, such as a
+	 * <code>ConcurrentView</code> for a Core that sends notifications and
+	 * registers mediators from several threads.</LI>
 	 * <LI> You have <code>Observers</code> to register with the
 	 * <code>View</code></LI>
 	 * </UL>
@@ -203,10 +286,80 @@ public class Facade implements IFacade {
 	 * @param command
 	 *            an instance of the <code>ICommand</code>
 	 */
-	public void registerCommand(String noteName, Class command) {
+	public void registerCommand(String noteName, Class<?> command) {
 		this.controller.registerCommand(noteName, command);
 	}
 
+	/**
+	 * Register an <code>ICommandFactory</code> with the <code>Controller</code>
+	 * by Notification name.
+	 *
+	 * @param noteName
+	 *            the name of the <code>INotification</code> to associate the
+	 *            <code>ICommand</code>s with
+	 * @param factory
+	 *            the <code>ICommandFactory</code> creating the <code>ICommand</code>s
+	 */
+	public void registerCommand(String noteName, ICommandFactory factory) {
+		this.controller.registerCommand(noteName, factory);
+	}
+
+	/**
+	 * Register an <code>IFunction</code> with the <code>Controller</code>
+	 * as the command for a Notification name.
+	 *
+	 * @param noteName
+	 *            the name of the <code>INotification</code> to associate the
+	 *            <code>IFunction</code> with
+	 * @param function
+	 *            the <code>IFunction</code> handling the <code>INotification</code>
+	 */
+	public void registerCommand(String noteName, IFunction function) {
+		this.controller.registerCommand(noteName, function);
+	}
+
+	/**
+	 * Add an <code>ICommand</code> to the commands executed for a
+	 * Notification name, after those already registered.
+	 *
+	 * @param noteName
+	 *            the name of the <code>INotification</code> to associate the
+	 *            <code>ICommand</code> with
+	 * @param command
+	 *            the Class of the <code>ICommand</code>
+	 */
+	public void addCommand(String noteName, Class<?> command) {
+		this.controller.addCommand(noteName, command);
+	}
+
+	/**
+	 * Add an <code>ICommandFactory</code> to the commands executed for a
+	 * Notification name, after those already registered.
+	 *
+	 * @param noteName
+	 *            the name of the <code>INotification</code> to associate the
+	 *            <code>ICommand</code>s with
+	 * @param factory
+	 *            the <code>ICommandFactory</code> creating the <code>ICommand</code>s
+	 */
+	public void addCommand(String noteName, ICommandFactory factory) {
+		this.controller.addCommand(noteName, factory);
+	}
+
+	/**
+	 * Add an <code>IFunction</code> to the commands executed for a
+	 * Notification name, after those already registered.
+	 *
+	 * @param noteName
+	 *            the name of the <code>INotification</code> to associate the
+	 *            <code>IFunction</code> with
+	 * @param function
+	 *            the <code>IFunction</code> handling the <code>INotification</code>
+	 */
+	public void addCommand(String noteName, IFunction function) {
+		this.controller.addCommand(noteName, function);
+	}
+
 	/**
 	 * Remove a previously registered <code>ICommand</code> to <code>INotification</code> mapping from the Controller.
 	 * 
@@ -249,6 +402,24 @@ public class Facade implements IFacade {
 		this.model.registerProxy(proxy);
 	}
 
+	/**
+	 * Register an <code>IProxyFactory</code> with the <code>Model</code>.
+	 *
+	 * <P>
+	 * The <code>IProxy</code> is created, initialized and registered the
+	 * first time it is retrieved, which keeps unused proxies out of the
+	 * Core's startup.
+	 * </P>
+	 *
+	 * @param proxyName
+	 *            the name of the <code>IProxy</code> the factory creates
+	 * @param factory
+	 *            the <code>IProxyFactory</code> creating the <code>IProxy</code>
+	 */
+	public void registerProxyFactory(String proxyName, IProxyFactory factory) {
+		this.model.registerProxyFactory(proxyName, factory);
+	}
+
 	/**
 	 * Remove an <code>IMediator</code> from the <code>View</code>.
 	 *
@@ -288,6 +459,83 @@ public class Facade implements IFacade {
 		return model.hasProxy(proxyName);
 	}
 
+	/**
+	 * Save the data of the registered <code>ISnapshotProxy</code>s to a
+	 * file.
+	 *
+	 * <P>
+	 * The snapshot is written to a temporary file next to it and synced to
+	 * the disk, then the temporary file replaces the file, so a failed or
+	 * interrupted save leaves the previous snapshot in place. On platforms
+	 * that cannot rename over an existing file, the previous snapshot is
+	 * moved to a <code>.bak</code> file next to it for the time of the
+	 * rename.
+	 * </P>
+	 *
+	 * @param file
+	 *            the snapshot file
+	 * @throws IOException
+	 *             if the snapshot cannot be written
+	 */
+	public void saveSnapshot(File file) throws IOException {
+		File temp = new File(file.getPath() + ".tmp");
+		FileOutputStream stream = new FileOutputStream(temp);
+		boolean saved = false;
+		try {
+			model.saveSnapshot(new BufferedOutputStream(stream, SNAPSHOT_BUFFER_SIZE));
+			// the data must be on the disk before the rename publishes it
+			stream.getFD().sync();
+			stream.close();
+			replaceSnapshot(temp, file);
+			saved = true;
+		} finally {
+			if (!saved) {
+				try {
+					stream.close();
+				} catch (IOException e) {
+					// the failure of the save is reported instead
+				}
+				temp.delete();
+			}
+		}
+	}
+
+	private static void replaceSnapshot(File temp, File file) throws IOException {
+		if (temp.renameTo(file)) {
+			return;
+		}
+		// some platforms do not rename over an existing file: move the
+		// previous snapshot aside, and back if the rename still fails
+		File previous = new File(file.getPath() + ".bak");
+		previous.delete();
+		if (!file.renameTo(previous)) {
+			throw new IOException("Failed to replace snapshot " + file);
+		}
+		if (!temp.renameTo(file)) {
+			previous.renameTo(file);
+			throw new IOException("Failed to replace snapshot " + file);
+		}
+		previous.delete();
+	}
+
+	/**
+	 * Restore the data of <code>ISnapshotProxy</code>s from a file saved
+	 * with <code>saveSnapshot</code>.
+	 *
+	 * @param file
+	 *            the snapshot file
+	 * @throws IOException
+	 *             if the snapshot cannot be read
+	 */
+	public void restoreSnapshot(File file) throws IOException {
+		InputStream in = new BufferedInputStream(new FileInputStream(file), SNAPSHOT_BUFFER_SIZE);
+		try {
+			model.restoreSnapshot(in);
+		} finally {
+			in.close();
+		}
+	}
+
 	/**
 	 * Check if a Mediator is registered or not.
 	 *
@@ -321,6 +569,24 @@ public class Facade implements IFacade {
 		return this.model.retrieveProxy(proxyName);
 	}
 
+	/**
+	 * Retrieve an <code>IProxy</code> from the <code>Model</code> by class.
+	 *
+	 * <P>
+	 * Only a proxy of exactly this class is found, and a proxy registered
+	 * through an <code>IProxyFactory</code> only once it has been retrieved
+	 * by name.
+	 * </P>
+	 *
+	 * @param proxyClass
+	 *            the class of the proxy to be retrieved.
+	 * @return the <code>IProxy</code> instance of this class registered
+	 *         with the <code>Model</code>, or <code>null</code>.
+	 */
+	public <T extends IProxy> T retrieveProxy(Class<T> proxyClass) {
+		return this.model.retrieveProxy(proxyClass);
+	}
+
 	/**
 	 * Create and send an <code>INotification</code>.
 	 *
@@ -365,6 +631,248 @@ public class Facade implements IFacade {
         notifyObservers(note);
     }
 
+	/**
+	 * Create and send an <code>INotification</code> with an interned name.
+	 *
+	 * <P>
+	 * The <code>View</code> and <code>Controller</code> dispatch it by
+	 * the ordinal of its name, without hashing the name.
+	 * @param noteName the interned name of the note to send
+	 * @param body the body of the note (optional)
+	 * @param type the type of the note (optional)
+	 */
+	public void sendNotification(NotificationName noteName, Object body, String type) {
+		notifyObservers(new Notification(noteName, body, type));
+	}
+
+	/**
+	 * Create and send an <code>INotification</code> with an interned name.
+	 *
+	 * @param noteName the interned name of the note to send
+	 * @param body the body of the note (optional)
+	 */
+	public void sendNotification(NotificationName noteName, Object body) {
+		sendNotification(noteName, body, null);
+	}
+
+	/**
+	 * Create and send an <code>INotification</code> with an interned name.
+	 *
+	 * @param noteName the interned name of the note to send
+	 */
+	public void sendNotification(NotificationName noteName) {
+		sendNotification(noteName, null, null);
+	}
+
+	/**
+	 * Send an <code>INotification</code> asynchronously.
+	 *
+	 * <P>
+	 * The <code>INotification</code> is appended to this Core's queue and
+	 * the method returns immediately. The queue is drained by the
+	 * asynchronous <code>Executor</code>, which sends the queued
+	 * notifications one at a time in the order they were enqueued, so
+	 * observers and commands run off the caller's thread.
+	 * </P>
+	 *
+	 * @param note the <code>INotification</code> to send
+	 */
+	public void sendNotificationAsync(INotification note) {
+		notificationQueue.enqueue(note);
+	}
+
+	/**
+	 * Create and send an <code>INotification</code> asynchronously.
+	 *
+	 * @param noteName the name of the note to send
+	 * @param body the body of the note (optional)
+	 * @param type the type of the note (optional)
+	 */
+	public void sendNotificationAsync(String noteName, Object body, String type) {
+		sendNotificationAsync(new Notification(noteName, body, type));
+	}
+
+	/**
+	 * Create and send an <code>INotification</code> asynchronously.
+	 *
+	 * @param noteName the name of the note to send
+	 * @param body the body of the note (optional)
+	 */
+	public void sendNotificationAsync(String noteName, Object body) {
+		sendNotificationAsync(noteName, body, null);
+	}
+
+	/**
+	 * Create and send an <code>INotification</code> asynchronously.
+	 *
+	 * @param noteName the name of the note to send
+	 */
+	public void sendNotificationAsync(String noteName) {
+		sendNotificationAsync(noteName, null, null);
+	}
+
+	/**
+	 * Set the <code>Executor</code> that delivers this Core's asynchronous
+	 * notifications.
+	 *
+	 * <P>
+	 * Delivery order is preserved whatever the number of threads of the
+	 * <code>Executor</code>. By default a shared pool of daemon threads
+	 * is used.
+	 * </P>
+	 *
+	 * @param executor the <code>Executor</code>, or <code>null</code> for the default
+	 */
+	public void setAsyncExecutor(Executor executor) {
+		notificationQueue.setExecutor(executor);
+	}
+
+	/**
+	 * Set the <code>Executor</code> on which the <code>Controller</code> runs
+	 * <code>IAsyncCommand</code>s.
+	 *
+	 * @param executor the <code>Executor</code>, or <code>null</code> to run
+	 *            them on the notifying thread
+	 */
+	public void setCommandExecutor(Executor executor) {
+		this.controller.setCommandExecutor(executor);
+	}
+
+	/**
+	 * Enable or disable running each command of this Core on a thread of
+	 * its own, a virtual thread when the JDK supports them.
+	 *
+	 * @param enabled whether each command runs on a thread of its own
+	 */
+	public void setThreadPerCommand(boolean enabled) {
+		this.controller.setThreadPerCommand(enabled);
+	}
+
+	/**
+	 * Enable or disable the memoization of this Core's
+	 * <code>IPureCommand</code>s.
+	 *
+	 * @param capacity the number of executions to remember, or
+	 *            <code>0</code> to disable memoization
+	 */
+	public void setMemoization(int capacity) {
+		this.controller.setMemoization(capacity);
+	}
+
+	/**
+	 * Create and send an <code>INotification</code>, and get the result of
+	 * the <code>IAsyncCommand</code> registered for it.
+	 *
+	 * <P>
+	 * The <code>IAsyncCommand</code> may still be running on the command
+	 * <code>Executor</code> when this method returns; wait for it with
+	 * <code>get</code> on the returned <code>Future</code>.
+	 * </P>
+	 *
+	 * @param noteName the name of the note to send
+	 * @param body the body of the note (optional)
+	 * @param type the type of the note (optional)
+	 * @return the <code>Future</code> of the command's result, or
+	 *         <code>null</code> if no <code>IAsyncCommand</code> handled the
+	 *         note while it was sent, as when the <code>View</code>
+	 *         delivers notifications on another thread
+	 */
+	public Future<Object> sendNotificationForResult(String noteName, Object body, String type) {
+		ResultNotification note = new ResultNotification(noteName, body, type);
+		notifyObservers(note);
+		return note.getResult();
+	}
+
+	/**
+	 * Create and send an <code>INotification</code>, and get the result of
+	 * the <code>IAsyncCommand</code> registered for it.
+	 *
+	 * @param noteName the name of the note to send
+	 * @param body the body of the note (optional)
+	 * @return the <code>Future</code> of the command's result, or <code>null</code>
+	 */
+	public Future<Object> sendNotificationForResult(String noteName, Object body) {
+		return sendNotificationForResult(noteName, body, null);
+	}
+
+	/**
+	 * Create and send a coalescable <code>INotification</code>.
+	 *
+	 * <P>
+	 * While coalescing is enabled, only the latest of the coalescable
+	 * notifications with this name and type sent before the next flush is
+	 * delivered. Otherwise it is sent immediately.
+	 * </P>
+	 *
+	 * @param noteName the name of the note to send
+	 * @param body the body of the note (optional)
+	 * @param type the type of the note (optional)
+	 */
+	public void sendCoalescedNotification(String noteName, Object body, String type) {
+		Notification note = new Notification(noteName, body, type);
+		note.setCoalescable(true);
+		notifyObservers(note);
+	}
+
+	/**
+	 * Create and send a coalescable <code>INotification</code>.
+	 *
+	 * @param noteName the name of the note to send
+	 * @param body the body of the note (optional)
+	 */
+	public void sendCoalescedNotification(String noteName, Object body) {
+		sendCoalescedNotification(noteName, body, null);
+	}
+
+	/**
+	 * Enable or disable coalescing mode.
+	 *
+	 * <P>
+	 * While enabled, <code>Notification</code>s flagged as coalescable are
+	 * held back and collapsed by name and type, and only the latest of each
+	 * is delivered by <code>flush</code>. Disabling coalescing flushes the
+	 * pending notifications; a coalescable notification sent concurrently
+	 * is delivered immediately.
+	 * </P>
+	 *
+	 * @param enabled whether coalescable notifications are held back
+	 */
+	public synchronized void setCoalescing(boolean enabled) {
+		if (enabled && this.coalescer == null) {
+			this.coalescer = new NotificationCoalescer(this.view);
+		} else if (!enabled && this.coalescer != null) {
+			NotificationCoalescer pending = this.coalescer;
+			this.coalescer = null;
+			pending.close();
+		}
+	}
+
+	/**
+	 * Set the coalescing flush window.
+	 *
+	 * <P>
+	 * The pending notifications are flushed this long after the first of
+	 * them was sent, on a thread of the default <code>NotificationQueue</code>
+	 * executor. Enables coalescing mode.
+	 * </P>
+	 *
+	 * @param millis the flush window, or <code>0</code> to only flush explicitly
+	 */
+	public synchronized void setCoalescingWindow(long millis) {
+		setCoalescing(true);
+		this.coalescer.setWindow(millis);
+	}
+
+	/**
+	 * Deliver the pending coalesced notifications on the calling thread.
+	 */
+	public void flush() {
+		NotificationCoalescer pending = this.coalescer;
+		if (pending != null) {
+			pending.flush();
+		}
+	}
+
     /**
 	 * Notify <code>Observer</code>s of an <code>INotification</code>.
 	 *
@@ -373,11 +881,27 @@ public class Facade implements IFacade {
 	 *            notify observers of.
 	 */
 	private void notifyObservers(INotification note) {
+		NotificationCoalescer pending = this.coalescer;
+		if (pending != null && note instanceof Notification && ((Notification) note).isCoalescable()) {
+			pending.add(note);
+			return;
+		}
 		if (this.view != null) {
 			this.view.notifyObservers(note);
 		}
 	}
 
+	/**
+	 * Drop the queued and coalesced notifications, and those sent
+	 * asynchronously or coalescable from now on.
+	 */
+	private synchronized void closeNotifications() {
+		notificationQueue.close();
+		if (this.coalescer != null) {
+			this.coalescer.discard();
+		}
+	}
+
 	public void initializeNotifier(String key) {
 		multitonKey = key;
 	}
@@ -395,9 +919,19 @@ public class Facade implements IFacade {
 	/**
 	 * Remove a Core.
 	 *
+	 * <P>
+	 * The notifications this Core still has to send asynchronously, or
+	 * holds back for coalescing, are dropped first: delivering them once
+	 * the Core is gone would have their observers re-create it.
+	 * </P>
+	 *
 	 * @param multitonKey of the Core to remove
 	 */
 	public synchronized static void removeCore(String key) {
+		Facade facade = instanceMap.get(key);
+		if (facade != null) {
+			facade.closeNotifications();
+		}
 		// remove the model, view, controller
 		// and facade instances for this key
 		Model.removeModel(key);
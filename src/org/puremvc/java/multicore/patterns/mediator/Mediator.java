@@ -11,8 +11,11 @@ import org.puremvc.java.multicore.interfaces.IFunction;
 import org.puremvc.java.multicore.interfaces.IMediator;
 import org.puremvc.java.multicore.interfaces.INotifier;
 import org.puremvc.java.multicore.patterns.observer.Notifier;
+import org.puremvc.java.multicore.patterns.observer.Subscription;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -34,6 +37,11 @@ public class Mediator extends Notifier implements IMediator, INotifier {
 
     protected HashMap<String, IFunction> observers = null;
 
+	/**
+	 * Type specific or prioritized interests of the <code>Mediator</code>.
+	 */
+	protected List<Subscription> subscriptions = null;
+
     /**
      * Default constructor.
      *
@@ -42,6 +50,7 @@ public class Mediator extends Notifier implements IMediator, INotifier {
      */
     public Mediator(String mediatorName) {
         observers = new HashMap<String, IFunction>();
+        subscriptions = new ArrayList<Subscription>();
         this.mediatorName = mediatorName;
     }
 
@@ -69,6 +78,64 @@ public class Mediator extends Notifier implements IMediator, INotifier {
         return observers;
     }
 
+	/**
+	 * Register a note method for the <code>INotification</code>s with a
+	 * given name and type only.
+	 *
+	 * <P>
+	 * The <code>View</code> indexes the note method by type, so it is not
+	 * called for <code>INotification</code>s of other types.
+	 * </P>
+	 *
+	 * @param noteName the name of the <code>INotification</code>s
+	 * @param type the type of the <code>INotification</code>s
+	 * @param listener the note method to call
+	 */
+	public void registerObserver(String noteName, String type, IFunction listener) {
+		subscriptions.add(new Subscription(noteName, type, listener));
+	}
+
+	/**
+	 * Register a note method with a delivery priority.
+	 *
+	 * <P>
+	 * Note methods with a higher priority are called before the other
+	 * observers of the same <code>INotification</code>, the default
+	 * priority being <code>0</code>.
+	 * </P>
+	 *
+	 * @param noteName the name of the <code>INotification</code>s
+	 * @param listener the note method to call
+	 * @param priority the delivery priority
+	 */
+	public void registerObserver(String noteName, IFunction listener, int priority) {
+		subscriptions.add(new Subscription(noteName, null, listener, priority));
+	}
+
+	/**
+	 * Register a note method for the <code>INotification</code>s with a
+	 * given name and type only, with a delivery priority.
+	 *
+	 * @param noteName the name of the <code>INotification</code>s
+	 * @param type the type of the <code>INotification</code>s
+	 * @param listener the note method to call
+	 * @param priority the delivery priority
+	 */
+	public void registerObserver(String noteName, String type, IFunction listener, int priority) {
+		subscriptions.add(new Subscription(noteName, type, listener, priority));
+	}
+
+	/**
+	 * Get the type specific or prioritized interests of the
+	 * <code>Mediator</code>, which the <code>View</code> registers along
+	 * with <code>getObservers</code>.
+	 *
+	 * @return the <code>Subscription</code>s registered with a type or priority
+	 */
+	public List<Subscription> getSubscriptions() {
+		return subscriptions;
+	}
+
     /**
 	 * Called by the View when the Mediator is registered.
 	 */
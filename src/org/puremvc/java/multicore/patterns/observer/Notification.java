@@ -50,6 +50,9 @@ public class Notification implements INotification {
 	// the name of the note instance
 	private String name = null;
 
+	// the interned name of the note instance, if it was created from one
+	private NotificationName notificationName = null;
+
 	// the type of the note instance
 	private String type = null;
 
@@ -58,6 +61,9 @@ public class Notification implements INotification {
 
     private boolean loggingEnabled  = true;
 
+	// whether the note may be collapsed with later ones of the same name and type
+	private boolean coalescable = false;
+
 	/**
 	 * Constructor.
 	 *
@@ -100,6 +106,28 @@ public class Notification implements INotification {
 		this.type = null;
 	}
 
+	/**
+	 * Constructor.
+	 *
+	 * <P>
+	 * A <code>Notification</code> created from an interned name is
+	 * dispatched by the <code>View</code> without hashing its name.
+	 * </P>
+	 *
+	 * @param name
+	 *            interned name of the <code>Notification</code> instance. (required)
+	 * @param body
+	 *            the <code>Notification</code> body. (optional)
+	 * @param type
+	 *            the type of the <code>Notification</code> (optional)
+	 */
+	public Notification(NotificationName name, Object body, String type) {
+		this.name = name.getName();
+		this.notificationName = name;
+		this.body = body;
+		this.type = type;
+	}
+
 	/**
 	 * Get the body of the <code>Notification</code> instance.
 	 *
@@ -118,6 +146,16 @@ public class Notification implements INotification {
 		return this.name;
 	}
 
+	/**
+	 * Get the interned name of the <code>Notification</code> instance.
+	 *
+	 * @return the interned name, or <code>null</code> if this
+	 *         <code>Notification</code> was created from a plain name.
+	 */
+	public NotificationName getNotificationName() {
+		return this.notificationName;
+	}
+
 	/**
 	 * Get the type of the <code>Notification</code> instance.
 	 *
@@ -153,6 +191,25 @@ public class Notification implements INotification {
         this.loggingEnabled = loggingEnabled;
     }
 
+	/**
+	 * Check whether the <code>Notification</code> may be coalesced.
+	 *
+	 * @return whether a <code>Facade</code> in coalescing mode may replace
+	 *         this <code>Notification</code> by a later one with the same
+	 *         name and type
+	 */
+	public boolean isCoalescable() {
+		return this.coalescable;
+	}
+
+	/**
+	 * Set whether the <code>Notification</code> may be coalesced.
+	 * @param coalescable
+	 */
+	public void setCoalescable(boolean coalescable) {
+		this.coalescable = coalescable;
+	}
+
     /**
 	 * Get the string representation of the <code>Notification</code>
 	 * instance.
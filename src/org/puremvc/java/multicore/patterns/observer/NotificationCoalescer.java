@@ -0,0 +1,205 @@
+/* 
+ PureMVC Java MultiCore Port by Ima OpenSource <opensource@ima.eu>
+ Maintained by Anthony Quinault <anthony.quinault@puremvc.org>
+ PureMVC - Copyright(c) 2006-08 Futurescale, Inc., Some rights reserved. 
+ Your reuse is governed by the Creative Commons Attribution 3.0 License 
+ */
+package org.puremvc.java.multicore.patterns.observer;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import org.puremvc.java.multicore.interfaces.INotification;
+import org.puremvc.java.multicore.interfaces.IView;
+
+/**
+ * Collapses <code>INotification</code>s with the same name and type
+ * until they are flushed.
+ *
+ * <P>
+ * Only the latest <code>INotification</code> added for each name and type
+ * is kept. <code>flush</code> notifies the observers of the kept
+ * notifications, in the order in which each name and type was first added
+ * since the previous flush. With a flush window, a flush is also scheduled
+ * when the first notification is added. A shared timer thread then hands
+ * it to the default <code>NotificationQueue</code> executor, so observers
+ * never run on the timer thread itself.
+ * </P>
+ *
+ * <P>
+ * Once closed, the pending notifications are flushed and every
+ * notification added afterwards is delivered immediately. Once discarded,
+ * they are dropped instead, which is what removing a Core does.
+ * </P>
+ *
+ * @see org.puremvc.java.multicore.patterns.facade.Facade Facade
+ */
+public class NotificationCoalescer {
+
+	private static ScheduledExecutorService timer;
+
+	private final IView view;
+
+	// Mapping of name and type keys to the latest Notification
+	private Map<String, INotification> pending = new LinkedHashMap<String, INotification>();
+
+	private long window = 0;
+
+	private boolean closed = false;
+
+	private boolean discarded = false;
+
+	// number of batches flushed so far, identifying the pending batch
+	private long batch = 0;
+
+	// timed flush of the pending batch, if any
+	private ScheduledFuture<?> scheduled = null;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param view
+	 *            the <code>IView</code> flushed notifications are sent to
+	 */
+	public NotificationCoalescer(IView view) {
+		this.view = view;
+	}
+
+	private synchronized static ScheduledExecutorService getTimer() {
+		if (timer == null) {
+			timer = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+				public Thread newThread(Runnable runnable) {
+					Thread thread = new Thread(runnable, "PureMVC-NotificationCoalescer");
+					thread.setDaemon(true);
+					return thread;
+				}
+			});
+		}
+		return timer;
+	}
+
+	/**
+	 * Set the flush window.
+	 *
+	 * @param millis
+	 *            how long after the first added notification a flush
+	 *            happens, or <code>0</code> to only flush explicitly
+	 */
+	public synchronized void setWindow(long millis) {
+		this.window = millis;
+	}
+
+	/**
+	 * Add an <code>INotification</code>, replacing any pending one with the
+	 * same name and type.
+	 *
+	 * @param note
+	 *            the <code>INotification</code> to coalesce
+	 */
+	public void add(INotification note) {
+		String key = note.getType() == null ? note.getName() : note.getName() + '\u0000' + note.getType();
+		synchronized (this) {
+			if (discarded) {
+				return;
+			}
+			if (!closed) {
+				boolean first = pending.isEmpty();
+				pending.put(key, note);
+				if (first && window > 0) {
+					schedule();
+				}
+				return;
+			}
+		}
+		view.notifyObservers(note);
+	}
+
+	/**
+	 * Schedule the flush of the pending batch, replacing any earlier one.
+	 */
+	private void schedule() {
+		cancel();
+		final long current = batch;
+		scheduled = getTimer().schedule(new Runnable() {
+			public void run() {
+				NotificationQueue.getDefaultExecutor().execute(new Runnable() {
+					public void run() {
+						flush(current);
+					}
+				});
+			}
+		}, window, TimeUnit.MILLISECONDS);
+	}
+
+	private void cancel() {
+		if (scheduled != null) {
+			scheduled.cancel(false);
+			scheduled = null;
+		}
+	}
+
+	/**
+	 * Get the number of <code>INotification</code>s waiting to be flushed.
+	 *
+	 * @return the number of distinct names and types pending
+	 */
+	public synchronized int size() {
+		return pending.size();
+	}
+
+	/**
+	 * Notify the observers of every pending <code>INotification</code> on
+	 * the calling thread.
+	 */
+	public void flush() {
+		flush(-1);
+	}
+
+	/**
+	 * Flush the pending notifications if they still are the given batch.
+	 *
+	 * @param expected
+	 *            the batch to flush, or <code>-1</code> for any
+	 */
+	private void flush(long expected) {
+		Map<String, INotification> flushed;
+		synchronized (this) {
+			if (pending.isEmpty() || (expected >= 0 && expected != batch)) {
+				return;
+			}
+			flushed = pending;
+			pending = new LinkedHashMap<String, INotification>();
+			batch++;
+			cancel();
+		}
+		for (INotification note : flushed.values()) {
+			view.notifyObservers(note);
+		}
+	}
+
+	/**
+	 * Flush the pending notifications and stop coalescing: notifications
+	 * added from now on are delivered immediately.
+	 */
+	public void close() {
+		synchronized (this) {
+			closed = true;
+		}
+		flush();
+	}
+
+	/**
+	 * Drop the pending notifications, cancelling their timed flush, and
+	 * every notification added from now on.
+	 */
+	public synchronized void discard() {
+		discarded = true;
+		pending.clear();
+		cancel();
+	}
+}
@@ -0,0 +1,115 @@
+/* 
+ PureMVC Java MultiCore Port by Ima OpenSource <opensource@ima.eu>
+ Maintained by Anthony Quinault <anthony.quinault@puremvc.org>
+ PureMVC - Copyright(c) 2006-08 Futurescale, Inc., Some rights reserved. 
+ Your reuse is governed by the Creative Commons Attribution 3.0 License 
+ */
+package org.puremvc.java.multicore.patterns.observer;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * An interned <code>INotification</code> name.
+ *
+ * <P>
+ * Each distinct name is assigned a dense ordinal the first time it is
+ * interned. The <code>View</code> and <code>Controller</code> keep their
+ * observer and command lists in arrays indexed by that ordinal, so a
+ * <code>Notification</code> created from a <code>NotificationName</code>
+ * is dispatched without hashing its name.
+ * </P>
+ *
+ * <P>
+ * Senders on a hot path should intern their names once, typically in a
+ * constant, and use the <code>sendNotification</code> overloads that
+ * accept a <code>NotificationName</code>:
+ * </P>
+ *
+ * <listing>
+ *		public static final NotificationName PRICE_CHANGED = NotificationName.intern("priceChanged");
+ *		...
+ *		sendNotification(PRICE_CHANGED, price);
+ * </listing>
+ *
+ * <P>
+ * The registry is shared by all Cores and names are never released.
+ * </P>
+ *
+ * @see org.puremvc.java.multicore.patterns.observer.Notification Notification
+ * @see org.puremvc.java.multicore.core.view.View View
+ * @see org.puremvc.java.multicore.core.controller.Controller Controller
+ */
+public final class NotificationName {
+
+	// Mapping of names to their interned instances
+	private static final Map<String, NotificationName> registry = new ConcurrentHashMap<String, NotificationName>();
+
+	private static int nextOrdinal = 0;
+
+	private final String name;
+
+	private final int ordinal;
+
+	private NotificationName(String name, int ordinal) {
+		this.name = name;
+		this.ordinal = ordinal;
+	}
+
+	/**
+	 * Get the interned instance for a name, assigning it the next
+	 * ordinal if it has not been interned before.
+	 *
+	 * @param name
+	 *            the name of the <code>INotification</code>
+	 * @return the <code>NotificationName</code> for the given name
+	 */
+	public static NotificationName intern(String name) {
+		NotificationName interned = registry.get(name);
+		if (interned != null) {
+			return interned;
+		}
+		synchronized (registry) {
+			interned = registry.get(name);
+			if (interned == null) {
+				interned = new NotificationName(name, nextOrdinal++);
+				registry.put(name, interned);
+			}
+			return interned;
+		}
+	}
+
+	/**
+	 * Get the interned instance for a name without interning it.
+	 *
+	 * @param name
+	 *            the name of the <code>INotification</code>
+	 * @return the <code>NotificationName</code> for the given name, or
+	 *         <code>null</code> if it has never been interned
+	 */
+	public static NotificationName lookup(String name) {
+		return registry.get(name);
+	}
+
+	/**
+	 * Get the name.
+	 *
+	 * @return the name of the <code>INotification</code>
+	 */
+	public String getName() {
+		return this.name;
+	}
+
+	/**
+	 * Get the ordinal.
+	 *
+	 * @return the dense index assigned to this name
+	 */
+	public int getOrdinal() {
+		return this.ordinal;
+	}
+
+	public String toString() {
+		return this.name;
+	}
+}
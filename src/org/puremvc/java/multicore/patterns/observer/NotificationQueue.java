@@ -0,0 +1,178 @@
+/* 
+ PureMVC Java MultiCore Port by Ima OpenSource <opensource@ima.eu>
+ Maintained by Anthony Quinault <anthony.quinault@puremvc.org>
+ PureMVC - Copyright(c) 2006-08 Futurescale, Inc., Some rights reserved. 
+ Your reuse is governed by the Creative Commons Attribution 3.0 License 
+ */
+package org.puremvc.java.multicore.patterns.observer;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.puremvc.java.multicore.interfaces.INotification;
+import org.puremvc.java.multicore.interfaces.INotifier;
+
+/**
+ * A FIFO queue of <code>INotification</code>s sent asynchronously.
+ *
+ * <P>
+ * Enqueueing only appends the <code>INotification</code> and, if no drain
+ * is pending, submits one to the <code>Executor</code>. The drain sends the
+ * queued <code>INotification</code>s to the target <code>INotifier</code>
+ * one at a time, and at most one drain runs at once, so they are delivered
+ * in the order they were enqueued even on a multi-threaded
+ * <code>Executor</code>.
+ * </P>
+ *
+ * <P>
+ * Each <code>Facade</code> owns one <code>NotificationQueue</code>, which
+ * gives every Core its own ordered asynchronous delivery. The queue is
+ * closed when its Core is removed.
+ * </P>
+ *
+ * @see org.puremvc.java.multicore.patterns.facade.Facade Facade
+ */
+public class NotificationQueue {
+
+	private final static Logger logger = Logger.getLogger(NotificationQueue.class.getName());
+
+	private static ExecutorService defaultExecutor;
+
+	private final INotifier target;
+
+	private final Queue<INotification> queue = new ConcurrentLinkedQueue<INotification>();
+
+	private final AtomicBoolean scheduled = new AtomicBoolean(false);
+
+	private volatile boolean closed = false;
+
+	private volatile Executor executor;
+
+	private final Runnable drain = new Runnable() {
+		public void run() {
+			drain();
+		}
+	};
+
+	/**
+	 * Constructor.
+	 *
+	 * @param target
+	 *            the <code>INotifier</code> queued notifications are sent to
+	 */
+	public NotificationQueue(INotifier target) {
+		this.target = target;
+	}
+
+	/**
+	 * The <code>Executor</code> used by queues that have not been given one,
+	 * a shared cached pool of daemon threads.
+	 *
+	 * @return the default <code>Executor</code>
+	 */
+	public synchronized static Executor getDefaultExecutor() {
+		if (defaultExecutor == null) {
+			defaultExecutor = Executors.newCachedThreadPool(new ThreadFactory() {
+				public Thread newThread(Runnable runnable) {
+					Thread thread = new Thread(runnable, "PureMVC-NotificationQueue");
+					thread.setDaemon(true);
+					return thread;
+				}
+			});
+		}
+		return defaultExecutor;
+	}
+
+	/**
+	 * Set the <code>Executor</code> that drains this queue.
+	 *
+	 * @param executor
+	 *            the <code>Executor</code>, or <code>null</code> to use the
+	 *            default one
+	 */
+	public void setExecutor(Executor executor) {
+		this.executor = executor;
+	}
+
+	/**
+	 * Append an <code>INotification</code> to the queue.
+	 *
+	 * <P>
+	 * Once the queue is closed, the <code>INotification</code> is dropped.
+	 * </P>
+	 *
+	 * @param note
+	 *            the <code>INotification</code> to send
+	 */
+	public void enqueue(INotification note) {
+		if (closed) {
+			return;
+		}
+		queue.offer(note);
+		schedule();
+	}
+
+	/**
+	 * Close the queue, dropping the <code>INotification</code>s waiting to
+	 * be sent and those enqueued afterwards.
+	 *
+	 * <P>
+	 * An <code>INotification</code> being sent when the queue is closed is
+	 * still delivered; no other one is.
+	 * </P>
+	 */
+	public void close() {
+		closed = true;
+		queue.clear();
+	}
+
+	/**
+	 * Get the number of <code>INotification</code>s waiting to be sent.
+	 *
+	 * @return the queue length
+	 */
+	public int size() {
+		return queue.size();
+	}
+
+	private void schedule() {
+		if (!closed && !queue.isEmpty() && scheduled.compareAndSet(false, true)) {
+			Executor current = executor != null ? executor : getDefaultExecutor();
+			try {
+				current.execute(drain);
+			} catch (RejectedExecutionException e) {
+				scheduled.set(false);
+				logger.log(Level.SEVERE, "Notification queue drain rejected", e);
+			}
+		}
+	}
+
+	private void drain() {
+		try {
+			INotification note;
+			while (!closed && (note = queue.poll()) != null) {
+				try {
+					target.sendNotification(note);
+				} catch (RuntimeException e) {
+					logger.log(Level.SEVERE, "Failed to send " + note.getName(), e);
+				}
+			}
+		} finally {
+			scheduled.set(false);
+		}
+		if (closed) {
+			queue.clear();
+			return;
+		}
+		// pick up notifications enqueued after the last poll
+		schedule();
+	}
+}
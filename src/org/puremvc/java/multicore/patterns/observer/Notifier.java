@@ -102,6 +102,121 @@ public class Notifier {
         getFacade().sendNotification(note);
     }
 
+	/**
+	 * Send an <code>INotification</code> with an interned name.
+	 *
+	 * @param noteName
+	 *            the interned name of the notification to send
+	 * @param body
+	 *            the body of the note (optional)
+	 * @param type
+	 *            the type of the note (optional)
+	 */
+	public void sendNotification(NotificationName noteName, Object body,
+			String type) {
+		getFacade().sendNotification(noteName, body, type);
+	}
+
+	/**
+	 * Send an <code>INotification</code> with an interned name.
+	 *
+	 * @param noteName
+	 *            the interned name of the notification to send
+	 * @param body
+	 *            the body of the note (optional)
+	 */
+	public void sendNotification(NotificationName noteName, Object body) {
+		getFacade().sendNotification(noteName, body);
+	}
+
+	/**
+	 * Send an <code>INotification</code> with an interned name.
+	 *
+	 * @param noteName
+	 *            the interned name of the notification to send
+	 */
+	public void sendNotification(NotificationName noteName) {
+		getFacade().sendNotification(noteName);
+	}
+
+	/**
+	 * Send an <code>INotification</code> asynchronously through the
+	 * queue of this Core.
+	 *
+	 * @param note
+	 *            the <code>INotification</code> to send
+	 */
+	public void sendNotificationAsync(INotification note) {
+		getFacade().sendNotificationAsync(note);
+	}
+
+	/**
+	 * Send an <code>INotification</code> asynchronously through the
+	 * queue of this Core.
+	 *
+	 * @param noteName
+	 *            the name of the notification to send
+	 * @param body
+	 *            the body of the note (optional)
+	 * @param type
+	 *            the type of the note (optional)
+	 */
+	public void sendNotificationAsync(String noteName, Object body,
+			String type) {
+		getFacade().sendNotificationAsync(noteName, body, type);
+	}
+
+	/**
+	 * Send an <code>INotification</code> asynchronously through the
+	 * queue of this Core.
+	 *
+	 * @param noteName
+	 *            the name of the notification to send
+	 * @param body
+	 *            the body of the note (optional)
+	 */
+	public void sendNotificationAsync(String noteName, Object body) {
+		getFacade().sendNotificationAsync(noteName, body);
+	}
+
+	/**
+	 * Send an <code>INotification</code> asynchronously through the
+	 * queue of this Core.
+	 *
+	 * @param noteName
+	 *            the name of the notification to send
+	 */
+	public void sendNotificationAsync(String noteName) {
+		getFacade().sendNotificationAsync(noteName);
+	}
+
+	/**
+	 * Send a coalescable <code>INotification</code>.
+	 *
+	 * @param noteName
+	 *            the name of the notification to send
+	 * @param body
+	 *            the body of the note (optional)
+	 * @param type
+	 *            the type of the note (optional)
+	 */
+	public void sendCoalescedNotification(String noteName, Object body,
+			String type) {
+		getFacade().sendCoalescedNotification(noteName, body, type);
+	}
+
+	/**
+	 * Send a coalescable <code>INotification</code>.
+	 *
+	 * @param noteName
+	 *            the name of the notification to send
+	 * @param body
+	 *            the body of the note (optional)
+	 */
+	public void sendCoalescedNotification(String noteName, Object body) {
+		getFacade().sendCoalescedNotification(noteName, body);
+	}
+
 	/**
 	 * Initialize this INotifier instance.
 	 * <P>
@@ -0,0 +1,63 @@
+/* 
+ PureMVC Java MultiCore Port by Ima OpenSource <opensource@ima.eu>
+ Maintained by Anthony Quinault <anthony.quinault@puremvc.org>
+ PureMVC - Copyright(c) 2006-08 Futurescale, Inc., Some rights reserved. 
+ Your reuse is governed by the Creative Commons Attribution 3.0 License 
+ */
+package org.puremvc.java.multicore.patterns.observer;
+
+import java.util.concurrent.Future;
+
+/**
+ * A <code>Notification</code> through which its sender receives the
+ * result of the <code>IAsyncCommand</code> registered for it.
+ *
+ * <P>
+ * The <code>Controller</code> sets the <code>Future</code> of the command
+ * when it executes it, before the command runs, so once the notification
+ * has been delivered the sender can wait for the result with
+ * <code>getResult().get()</code>.
+ * </P>
+ *
+ * @see org.puremvc.java.multicore.interfaces.IAsyncCommand IAsyncCommand
+ * @see org.puremvc.java.multicore.patterns.facade.Facade Facade
+ */
+public class ResultNotification extends Notification {
+
+	private volatile Future<Object> result = null;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param name
+	 *            name of the <code>Notification</code> instance. (required)
+	 * @param body
+	 *            the <code>Notification</code> body. (optional)
+	 * @param type
+	 *            the type of the <code>Notification</code> (optional)
+	 */
+	public ResultNotification(String name, Object body, String type) {
+		super(name, body, type);
+	}
+
+	/**
+	 * Get the result of the <code>IAsyncCommand</code>.
+	 *
+	 * @return the <code>Future</code> of the command's result, or
+	 *         <code>null</code> if no <code>IAsyncCommand</code> has
+	 *         handled this notification yet
+	 */
+	public Future<Object> getResult() {
+		return this.result;
+	}
+
+	/**
+	 * Set the result of the <code>IAsyncCommand</code>.
+	 *
+	 * @param result
+	 *            the <code>Future</code> of the command's result
+	 */
+	public void setResult(Future<Object> result) {
+		this.result = result;
+	}
+}
@@ -0,0 +1,104 @@
+/* 
+ PureMVC Java MultiCore Port by Ima OpenSource <opensource@ima.eu>
+ Maintained by Anthony Quinault <anthony.quinault@puremvc.org>
+ PureMVC - Copyright(c) 2006-08 Futurescale, Inc., Some rights reserved. 
+ Your reuse is governed by the Creative Commons Attribution 3.0 License 
+ */
+package org.puremvc.java.multicore.patterns.observer;
+
+import org.puremvc.java.multicore.interfaces.IFunction;
+
+/**
+ * An <code>IMediator</code>'s interest in the <code>INotification</code>s
+ * with a given name and type, with a delivery priority.
+ *
+ * <P>
+ * When the <code>IMediator</code> is registered, the <code>View</code>
+ * indexes its listener by both name and type, so it is only called for
+ * <code>INotification</code>s whose <code>getType()</code> matches, and
+ * places it before the observers with a lower priority.
+ * </P>
+ *
+ * @see org.puremvc.java.multicore.patterns.mediator.Mediator Mediator
+ */
+public class Subscription {
+
+	private final String notificationName;
+
+	private final String type;
+
+	private final IFunction listener;
+
+	private final int priority;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param notificationName
+	 *            the name of the <code>INotification</code>s
+	 * @param type
+	 *            the type of the <code>INotification</code>s, or
+	 *            <code>null</code> for any type
+	 * @param listener
+	 *            the note method to call
+	 */
+	public Subscription(String notificationName, String type, IFunction listener) {
+		this(notificationName, type, listener, 0);
+	}
+
+	/**
+	 * Constructor.
+	 *
+	 * @param notificationName
+	 *            the name of the <code>INotification</code>s
+	 * @param type
+	 *            the type of the <code>INotification</code>s, or
+	 *            <code>null</code> for any type
+	 * @param listener
+	 *            the note method to call
+	 * @param priority
+	 *            listeners with a higher priority are called first
+	 */
+	public Subscription(String notificationName, String type, IFunction listener, int priority) {
+		this.notificationName = notificationName;
+		this.type = type;
+		this.listener = listener;
+		this.priority = priority;
+	}
+
+	/**
+	 * Get the name of the <code>INotification</code>s.
+	 *
+	 * @return the notification name
+	 */
+	public String getNotificationName() {
+		return this.notificationName;
+	}
+
+	/**
+	 * Get the type of the <code>INotification</code>s.
+	 *
+	 * @return the type, or <code>null</code> for any type
+	 */
+	public String getType() {
+		return this.type;
+	}
+
+	/**
+	 * Get the note method.
+	 *
+	 * @return the note (callback) method to call
+	 */
+	public IFunction getListener() {
+		return this.listener;
+	}
+
+	/**
+	 * Get the delivery priority.
+	 *
+	 * @return the priority, <code>0</code> by default
+	 */
+	public int getPriority() {
+		return this.priority;
+	}
+}
@@ -0,0 +1,272 @@
+/* 
+ PureMVC Java MultiCore Port by Ima OpenSource <opensource@ima.eu>
+ Maintained by Anthony Quinault <anthony.quinault@puremvc.org>
+ PureMVC - Copyright(c) 2006-08 Futurescale, Inc., Some rights reserved. 
+ Your reuse is governed by the Creative Commons Attribution 3.0 License 
+ */
+package org.puremvc.java.multicore.patterns.proxy;
+
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * A <code>Proxy</code> loading values by key asynchronously, at most once
+ * at a time for each key.
+ *
+ * <P>
+ * <code>get</code> returns the <code>Future</code> of the load of a key.
+ * While a load is in flight, every other <code>get</code> of the same key
+ * waits for the same load instead of starting another one, so a burst of
+ * requests for a key costs a single call to <code>load</code>. Each caller
+ * gets its own <code>Future</code>: cancelling it gives up waiting for the
+ * value without cancelling the load the other callers are waiting for.
+ * Once the load completes, the next <code>get</code>
+ * starts a new one; cache the values, for instance in a
+ * <code>CachingProxy</code>, if they may be reused.
+ * </P>
+ *
+ * <P>
+ * When a completion notification name is set, each successful load sends
+ * a notification of that name with the value as body and the key as
+ * type, so observers can subscribe to the keys they are interested in.
+ * A failed load sends the failure notification, if set, with the cause
+ * as body.
+ * </P>
+ *
+ * @see org.puremvc.java.multicore.patterns.proxy.Proxy Proxy
+ */
+public abstract class AsyncProxy<K, V> extends Proxy {
+
+    private static ExecutorService defaultExecutor;
+
+    // loads in flight, by key
+    private final ConcurrentMap<K, Load<V>> inFlight = new ConcurrentHashMap<K, Load<V>>();
+
+    private volatile Executor executor = null;
+
+    private volatile String completionNotification = null;
+
+    private volatile String failureNotification = null;
+
+    /**
+     * Constructor.
+     * @param proxyName
+     */
+    public AsyncProxy(String proxyName) {
+        super(proxyName);
+    }
+
+    /**
+     * The <code>Executor</code> used by proxies that have not been given
+     * one, a shared cached pool of daemon threads.
+     * @return the default <code>Executor</code>
+     */
+    public synchronized static Executor getDefaultExecutor() {
+        if (defaultExecutor == null) {
+            defaultExecutor = Executors.newCachedThreadPool(new ThreadFactory() {
+                public Thread newThread(Runnable runnable) {
+                    Thread thread = new Thread(runnable, "PureMVC-AsyncProxy");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+        }
+        return defaultExecutor;
+    }
+
+    /**
+     * Set the <code>Executor</code> running the loads.
+     * @param executor the <code>Executor</code>, or <code>null</code> for the default one
+     */
+    public void setExecutor(Executor executor) {
+        this.executor = executor;
+    }
+
+    /**
+     * Set the name of the notification sent when a load succeeds.
+     * @param noteName the notification name, or <code>null</code> to send none
+     */
+    public void setCompletionNotification(String noteName) {
+        this.completionNotification = noteName;
+    }
+
+    /**
+     * Set the name of the notification sent when a load fails.
+     * @param noteName the notification name, or <code>null</code> to send none
+     */
+    public void setFailureNotification(String noteName) {
+        this.failureNotification = noteName;
+    }
+
+    /**
+     * Get the value of a key, loading it unless a load is already in flight.
+     * @param key
+     * @return the <code>Future</code> of the value
+     * @throws IllegalArgumentException if the key is <code>null</code>
+     */
+    public Future<V> get(final K key) {
+        if (key == null) {
+            throw new IllegalArgumentException("Key must not be null");
+        }
+        Load<V> pending = inFlight.get(key);
+        if (pending != null) {
+            return new Waiter<V>(pending);
+        }
+        Load<V> task = new Load<V>(new Callable<V>() {
+            public V call() throws Exception {
+                return load(key);
+            }
+        }) {
+            protected void done() {
+                super.done();
+                inFlight.remove(key, this);
+                completed(key, this);
+            }
+        };
+        pending = inFlight.putIfAbsent(key, task);
+        if (pending != null) {
+            return new Waiter<V>(pending);
+        }
+        Executor current = executor != null ? executor : getDefaultExecutor();
+        try {
+            current.execute(task);
+        } catch (RejectedExecutionException e) {
+            task.run();
+        }
+        return new Waiter<V>(task);
+    }
+
+    /**
+     * Get the number of loads in flight.
+     * @return the number of keys being loaded
+     */
+    public int getInFlightCount() {
+        return inFlight.size();
+    }
+
+    /**
+     * Load the value of a key, on a thread of the <code>Executor</code>.
+     * @param key
+     * @return the value
+     * @throws Exception if the value cannot be loaded
+     */
+    protected abstract V load(K key) throws Exception;
+
+    private void completed(K key, Future<V> task) {
+        if (task.isCancelled() || multitonKey == null) {
+            return;
+        }
+        String type = String.valueOf(key);
+        try {
+            V value = task.get();
+            if (completionNotification != null) {
+                sendNotification(completionNotification, value, type);
+            }
+        } catch (ExecutionException e) {
+            if (failureNotification != null) {
+                sendNotification(failureNotification, e.getCause(), type);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * A load shared by the callers of <code>get</code>, releasing their
+     * latches once it completes.
+     */
+    private static class Load<V> extends FutureTask<V> {
+
+        private final Queue<CountDownLatch> waiters = new ConcurrentLinkedQueue<CountDownLatch>();
+
+        Load(Callable<V> callable) {
+            super(callable);
+        }
+
+        void addWaiter(CountDownLatch latch) {
+            waiters.add(latch);
+            if (isDone()) {
+                latch.countDown();
+            }
+        }
+
+        protected void done() {
+            CountDownLatch latch;
+            while ((latch = waiters.poll()) != null) {
+                latch.countDown();
+            }
+        }
+    }
+
+    /**
+     * The <code>Future</code> of one caller of <code>get</code>, whose
+     * cancellation leaves the shared load running. It waits on a latch of
+     * its own, released by the load completing or by <code>cancel</code>,
+     * so cancelling wakes the threads blocked in <code>get</code>.
+     */
+    private static final class Waiter<V> implements Future<V> {
+
+        private final Load<V> load;
+
+        private final CountDownLatch released = new CountDownLatch(1);
+
+        private volatile boolean cancelled;
+
+        Waiter(Load<V> load) {
+            this.load = load;
+            load.addWaiter(released);
+        }
+
+        public boolean cancel(boolean mayInterruptIfRunning) {
+            if (load.isDone()) {
+                return false;
+            }
+            cancelled = true;
+            released.countDown();
+            return true;
+        }
+
+        public boolean isCancelled() {
+            return cancelled;
+        }
+
+        public boolean isDone() {
+            return cancelled || load.isDone();
+        }
+
+        public V get() throws InterruptedException, ExecutionException {
+            released.await();
+            checkCancelled();
+            return load.get();
+        }
+
+        public V get(long timeout, TimeUnit unit) throws InterruptedException, ExecutionException, TimeoutException {
+            if (!released.await(timeout, unit)) {
+                throw new TimeoutException();
+            }
+            checkCancelled();
+            return load.get();
+        }
+
+        private void checkCancelled() {
+            if (cancelled) {
+                throw new CancellationException();
+            }
+        }
+    }
+}
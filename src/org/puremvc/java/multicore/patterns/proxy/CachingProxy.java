@@ -0,0 +1,338 @@
+/* 
+ PureMVC Java MultiCore Port by Ima OpenSource <opensource@ima.eu>
+ Maintained by Anthony Quinault <anthony.quinault@puremvc.org>
+ PureMVC - Copyright(c) 2006-08 Futurescale, Inc., Some rights reserved. 
+ Your reuse is governed by the Creative Commons Attribution 3.0 License 
+ */
+package org.puremvc.java.multicore.patterns.proxy;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A <code>Proxy</code> holding a bounded cache of values by key.
+ *
+ * <P>
+ * The cache keeps its entries in least recently used order. When a
+ * <code>put</code> takes it over its maximum number of entries or its
+ * maximum weight, the least recently used entries are evicted until it
+ * fits again. With a time to live, entries also expire that long after
+ * they were put: an expired entry is evicted when it is next looked up,
+ * or by <code>purgeExpired</code>.
+ * </P>
+ *
+ * <P>
+ * Every lookup counts as a hit or a miss, and evictions are counted too.
+ * When an eviction notification name is set, each evicted key is sent as
+ * the body of a notification of that name, with the proxy name as type,
+ * after the cache has been updated. Subclasses may also override
+ * <code>onEvict</code>.
+ * </P>
+ *
+ * <P>
+ * All methods are synchronized, so the proxy may be shared between
+ * threads.
+ * </P>
+ *
+ * @see org.puremvc.java.multicore.patterns.proxy.Proxy Proxy
+ */
+public class CachingProxy<K, V> extends Proxy {
+
+    // the cached values, in least recently used order
+    private final LinkedHashMap<K, Entry<K, V>> entries = new LinkedHashMap<K, Entry<K, V>>(16, 0.75f, true);
+
+    private int maxEntries = Integer.MAX_VALUE;
+
+    private long maxWeight = Long.MAX_VALUE;
+
+    private long timeToLive = 0;
+
+    private long weight = 0;
+
+    private long hits = 0;
+
+    private long misses = 0;
+
+    private long evictions = 0;
+
+    private String evictionNotification = null;
+
+    /**
+     * Constructor.
+     * @param proxyName
+     * @param maxEntries the maximum number of entries
+     */
+    public CachingProxy(String proxyName, int maxEntries) {
+        super(proxyName);
+        setMaxEntries(maxEntries);
+    }
+
+    /**
+     * Set the maximum number of entries.
+     * @param maxEntries
+     */
+    public void setMaxEntries(int maxEntries) {
+        if (maxEntries < 1) {
+            throw new IllegalArgumentException("Maximum entries must be positive: " + maxEntries);
+        }
+        List<Entry<K, V>> evicted;
+        synchronized (this) {
+            this.maxEntries = maxEntries;
+            evicted = trim();
+        }
+        evicted(evicted);
+    }
+
+    /**
+     * Set the maximum total weight of the entries, as computed by
+     * <code>weigh</code>.
+     * @param maxWeight
+     */
+    public void setMaxWeight(long maxWeight) {
+        if (maxWeight < 1) {
+            throw new IllegalArgumentException("Maximum weight must be positive: " + maxWeight);
+        }
+        List<Entry<K, V>> evicted;
+        synchronized (this) {
+            this.maxWeight = maxWeight;
+            evicted = trim();
+        }
+        evicted(evicted);
+    }
+
+    /**
+     * Set how long entries live after they are put.
+     * @param millis the time to live, or <code>0</code> for no expiry
+     */
+    public synchronized void setTimeToLive(long millis) {
+        this.timeToLive = millis;
+    }
+
+    /**
+     * Set the name of the notification sent for each evicted key.
+     * @param noteName the notification name, or <code>null</code> to send none
+     */
+    public synchronized void setEvictionNotification(String noteName) {
+        this.evictionNotification = noteName;
+    }
+
+    /**
+     * Get a cached value.
+     * @param key
+     * @return the value, or <code>null</code> if it is not cached or has expired
+     */
+    public V get(K key) {
+        Entry<K, V> expired = null;
+        V value = null;
+        synchronized (this) {
+            Entry<K, V> entry = entries.get(key);
+            if (entry != null && entry.isExpired(System.currentTimeMillis())) {
+                entries.remove(key);
+                expired = evicted(entry);
+                entry = null;
+            }
+            if (entry == null) {
+                misses++;
+            } else {
+                hits++;
+                value = entry.value;
+            }
+        }
+        if (expired != null) {
+            evicted(Collections.singletonList(expired));
+        }
+        return value;
+    }
+
+    /**
+     * Cache a value, evicting the least recently used entries if the cache
+     * is then too large.
+     * @param key
+     * @param value
+     */
+    public void put(K key, V value) {
+        List<Entry<K, V>> evicted;
+        synchronized (this) {
+            long entryWeight = weigh(key, value);
+            long expiresAt = timeToLive > 0 ? System.currentTimeMillis() + timeToLive : Long.MAX_VALUE;
+            Entry<K, V> previous = entries.put(key, new Entry<K, V>(key, value, entryWeight, expiresAt));
+            if (previous != null) {
+                weight -= previous.weight;
+            }
+            weight += entryWeight;
+            evicted = trim();
+        }
+        evicted(evicted);
+    }
+
+    /**
+     * Remove a value, which does not count as an eviction.
+     * @param key
+     * @return the removed value, or <code>null</code>
+     */
+    public synchronized V remove(K key) {
+        Entry<K, V> entry = entries.remove(key);
+        if (entry == null) {
+            return null;
+        }
+        weight -= entry.weight;
+        return entry.value;
+    }
+
+    /**
+     * Remove all values, which does not count as evictions.
+     */
+    public synchronized void clear() {
+        entries.clear();
+        weight = 0;
+    }
+
+    /**
+     * Evict every expired entry.
+     */
+    public void purgeExpired() {
+        List<Entry<K, V>> evicted = new ArrayList<Entry<K, V>>();
+        synchronized (this) {
+            long now = System.currentTimeMillis();
+            for (Iterator<Map.Entry<K, Entry<K, V>>> i = entries.entrySet().iterator(); i.hasNext();) {
+                Map.Entry<K, Entry<K, V>> entry = i.next();
+                if (entry.getValue().isExpired(now)) {
+                    i.remove();
+                    evicted.add(evicted(entry.getValue()));
+                }
+            }
+        }
+        evicted(evicted);
+    }
+
+    /**
+     * Get the number of entries.
+     * @return the number of cached values, including expired ones not yet evicted
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * Get the total weight of the entries.
+     * @return the weight
+     */
+    public synchronized long getWeight() {
+        return weight;
+    }
+
+    /**
+     * Get the number of lookups that found a value.
+     * @return the hit count
+     */
+    public synchronized long getHitCount() {
+        return hits;
+    }
+
+    /**
+     * Get the number of lookups that found no value.
+     * @return the miss count
+     */
+    public synchronized long getMissCount() {
+        return misses;
+    }
+
+    /**
+     * Get the number of entries evicted.
+     * @return the eviction count
+     */
+    public synchronized long getEvictionCount() {
+        return evictions;
+    }
+
+    /**
+     * Compute the weight of an entry.
+     *
+     * <P>
+     * Override to bound the cache by an estimate of its memory use, such
+     * as the size of the value in bytes. Each entry weighs 1 by default.
+     * </P>
+     * @param key
+     * @param value
+     * @return the weight, which must not change while the entry is cached
+     */
+    protected long weigh(K key, V value) {
+        return 1;
+    }
+
+    /**
+     * Called after an entry has been evicted, outside the cache lock.
+     * @param key
+     * @param value
+     */
+    protected void onEvict(K key, V value) {
+    }
+
+    /**
+     * Evict least recently used entries until the cache fits its limits.
+     */
+    private List<Entry<K, V>> trim() {
+        List<Entry<K, V>> evicted = null;
+        Iterator<Map.Entry<K, Entry<K, V>>> i = entries.entrySet().iterator();
+        while ((entries.size() > maxEntries || weight > maxWeight) && i.hasNext()) {
+            Map.Entry<K, Entry<K, V>> eldest = i.next();
+            i.remove();
+            if (evicted == null) {
+                evicted = new ArrayList<Entry<K, V>>();
+            }
+            evicted.add(evicted(eldest.getValue()));
+        }
+        return evicted;
+    }
+
+    private Entry<K, V> evicted(Entry<K, V> entry) {
+        weight -= entry.weight;
+        evictions++;
+        return entry;
+    }
+
+    /**
+     * Report evictions, outside the cache lock.
+     */
+    private void evicted(List<Entry<K, V>> evicted) {
+        if (evicted == null || evicted.isEmpty()) {
+            return;
+        }
+        String noteName;
+        synchronized (this) {
+            noteName = this.evictionNotification;
+        }
+        for (Entry<K, V> entry : evicted) {
+            onEvict(entry.key, entry.value);
+            if (noteName != null && multitonKey != null) {
+                sendNotification(noteName, entry.key, getProxyName());
+            }
+        }
+    }
+
+    private static final class Entry<K, V> {
+
+        final K key;
+
+        final V value;
+
+        final long weight;
+
+        final long expiresAt;
+
+        Entry(K key, V value, long weight, long expiresAt) {
+            this.key = key;
+            this.value = value;
+            this.weight = weight;
+            this.expiresAt = expiresAt;
+        }
+
+        boolean isExpired(long now) {
+            return now >= expiresAt;
+        }
+    }
+}
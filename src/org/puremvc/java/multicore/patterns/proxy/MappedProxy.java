@@ -0,0 +1,353 @@
+/* 
+ PureMVC Java MultiCore Port by Ima OpenSource <opensource@ima.eu>
+ Maintained by Anthony Quinault <anthony.quinault@puremvc.org>
+ PureMVC - Copyright(c) 2006-08 Futurescale, Inc., Some rights reserved. 
+ Your reuse is governed by the Creative Commons Attribution 3.0 License 
+ */
+package org.puremvc.java.multicore.patterns.proxy;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * A <code>Proxy</code> keeping fixed-size records outside the Java heap,
+ * in a memory-mapped file or in direct buffers.
+ *
+ * <P>
+ * Records are read and written in place through <code>Record</code>
+ * flyweights: a <code>Record</code> is moved from one record to the next
+ * and reads its fields at byte offsets within the record, so walking the
+ * whole dataset creates no object per record and the records never count
+ * towards the heap. A file-backed proxy opens in the time it takes to map
+ * the file, the operating system paging the records in as they are read.
+ * </P>
+ *
+ * <listing>
+ *		MappedProxy prices = new MappedProxy("prices", file, 16, false);
+ *		MappedProxy.Record record = prices.newRecord();
+ *		for (long i = 0; i < prices.getRecordCount(); i++) {
+ *			record.moveTo(i);
+ *			total += record.getLong(0) * record.getDouble(8);
+ *		}
+ * </listing>
+ *
+ * <P>
+ * Reads may happen on several threads at once, each using its own
+ * <code>Record</code>. Writes are not synchronized: concurrent writers
+ * must agree on which records each of them owns.
+ * </P>
+ *
+ * @see org.puremvc.java.multicore.patterns.proxy.Proxy Proxy
+ */
+public class MappedProxy extends Proxy {
+
+    private final int recordSize;
+
+    // records per segment, so that no record straddles two segments
+    private final int segmentRecords;
+
+    private final boolean writable;
+
+    private final RandomAccessFile file;
+
+    private volatile Mapping mapping;
+
+    /**
+     * Constructor mapping the records of a file.
+     *
+     * <P>
+     * The file is created if it does not exist, when writable. Its length
+     * should be a multiple of the record size; a trailing partial record
+     * is ignored.
+     * </P>
+     * @param proxyName
+     * @param file the file holding the records
+     * @param recordSize the size of a record in bytes
+     * @param writable whether records may be written and the file resized
+     * @throws IOException if the file cannot be opened or mapped
+     */
+    public MappedProxy(String proxyName, File file, int recordSize, boolean writable) throws IOException {
+        super(proxyName);
+        this.recordSize = checkRecordSize(recordSize);
+        this.segmentRecords = Integer.MAX_VALUE / recordSize;
+        this.writable = writable;
+        this.file = new RandomAccessFile(file, writable ? "rw" : "r");
+        try {
+            map(this.file.length() / recordSize);
+        } catch (IOException e) {
+            this.file.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Constructor allocating the records in direct buffers.
+     *
+     * <P>
+     * The records live outside the heap but are not persisted.
+     * </P>
+     * @param proxyName
+     * @param recordSize the size of a record in bytes
+     * @param recordCount the number of records
+     */
+    public MappedProxy(String proxyName, int recordSize, long recordCount) {
+        super(proxyName);
+        this.recordSize = checkRecordSize(recordSize);
+        this.segmentRecords = Integer.MAX_VALUE / recordSize;
+        this.writable = true;
+        this.file = null;
+        ByteBuffer[] allocated = new ByteBuffer[segmentCount(recordCount)];
+        for (int i = 0; i < allocated.length; i++) {
+            allocated[i] = ByteBuffer.allocateDirect(segmentBytes(i, recordCount));
+        }
+        this.mapping = new Mapping(allocated, recordCount);
+    }
+
+    private static int checkRecordSize(int recordSize) {
+        if (recordSize < 1) {
+            throw new IllegalArgumentException("Record size must be positive: " + recordSize);
+        }
+        return recordSize;
+    }
+
+    private int segmentCount(long records) {
+        return (int) ((records + segmentRecords - 1) / segmentRecords);
+    }
+
+    private int segmentBytes(int segment, long records) {
+        long first = (long) segment * segmentRecords;
+        return (int) (Math.min(segmentRecords, records - first) * recordSize);
+    }
+
+    private void map(long records) throws IOException {
+        FileChannel channel = file.getChannel();
+        FileChannel.MapMode mode = writable ? FileChannel.MapMode.READ_WRITE : FileChannel.MapMode.READ_ONLY;
+        ByteBuffer[] mapped = new ByteBuffer[segmentCount(records)];
+        for (int i = 0; i < mapped.length; i++) {
+            mapped[i] = channel.map(mode, (long) i * segmentRecords * recordSize, segmentBytes(i, records));
+        }
+        this.mapping = new Mapping(mapped, records);
+    }
+
+    /**
+     * Get the size of a record.
+     * @return the record size in bytes
+     */
+    public int getRecordSize() {
+        return recordSize;
+    }
+
+    /**
+     * Get the number of records.
+     * @return the record count
+     */
+    public long getRecordCount() {
+        return mapping.recordCount;
+    }
+
+    /**
+     * Grow the file to hold a number of records, and map it again.
+     *
+     * <P>
+     * <code>Records</code> must be moved again after a resize to see the
+     * new mapping. The file never shrinks: <code>Records</code> still
+     * reading the previous mapping on other threads would fault on the
+     * truncated pages.
+     * </P>
+     * @param records the new record count
+     * @throws IllegalArgumentException if there would be fewer records
+     * @throws IOException if the file cannot be resized or mapped
+     */
+    public synchronized void setRecordCount(long records) throws IOException {
+        if (file == null || !writable) {
+            throw new IllegalStateException("Proxy " + getProxyName() + " cannot be resized");
+        }
+        long current = mapping.recordCount;
+        if (records < current) {
+            throw new IllegalArgumentException("Proxy " + getProxyName() + " cannot shrink from " + current + " to " + records + " records");
+        }
+        file.setLength(records * recordSize);
+        map(records);
+    }
+
+    /**
+     * Write the changes made to a file-backed proxy to the file.
+     */
+    public void force() {
+        ByteBuffer[] current = mapping.segments;
+        for (int i = 0; i < current.length; i++) {
+            if (current[i] instanceof MappedByteBuffer) {
+                ((MappedByteBuffer) current[i]).force();
+            }
+        }
+    }
+
+    /**
+     * Create a <code>Record</code> flyweight, positioned on the first record.
+     * @return a new <code>Record</code>
+     */
+    public Record newRecord() {
+        Record record = new Record();
+        if (mapping.recordCount > 0) {
+            record.moveTo(0);
+        }
+        return record;
+    }
+
+    /**
+     * Called by the Model when the Proxy is removed, or when its Core is
+     * removed: writes the changes and closes the file. The mapping itself
+     * is released by the garbage collector.
+     */
+    public void onRemove() {
+        if (file != null) {
+            if (writable) {
+                force();
+            }
+            try {
+                file.close();
+            } catch (IOException e) {
+                // the mapping remains valid
+            }
+        }
+    }
+
+    /**
+     * The segments and record count of a mapping, published together so
+     * that a <code>Record</code> never pairs the count of one mapping with
+     * the segments of another.
+     */
+    private static final class Mapping {
+
+        final ByteBuffer[] segments;
+
+        final long recordCount;
+
+        Mapping(ByteBuffer[] segments, long recordCount) {
+            this.segments = segments;
+            this.recordCount = recordCount;
+        }
+    }
+
+    /**
+     * A movable view of one record.
+     */
+    public final class Record {
+
+        private ByteBuffer buffer;
+
+        private int base;
+
+        private long index = -1;
+
+        Record() {
+        }
+
+        /**
+         * Move to a record.
+         * @param index the index of the record
+         * @return this <code>Record</code>
+         */
+        public Record moveTo(long index) {
+            Mapping current = mapping;
+            if (index < 0 || index >= current.recordCount) {
+                throw new IndexOutOfBoundsException("Record " + index + " of " + current.recordCount);
+            }
+            this.buffer = current.segments[(int) (index / segmentRecords)];
+            this.base = (int) (index % segmentRecords) * recordSize;
+            this.index = index;
+            return this;
+        }
+
+        /**
+         * Get the index of the current record.
+         * @return the index, or <code>-1</code> if the record was never moved
+         */
+        public long getIndex() {
+            return index;
+        }
+
+        private int at(int offset, int size) {
+            if (offset < 0 || offset + size > recordSize) {
+                throw new IndexOutOfBoundsException("Field at " + offset + " of a " + recordSize + " byte record");
+            }
+            return base + offset;
+        }
+
+        public byte getByte(int offset) {
+            return buffer.get(at(offset, 1));
+        }
+
+        public short getShort(int offset) {
+            return buffer.getShort(at(offset, 2));
+        }
+
+        public int getInt(int offset) {
+            return buffer.getInt(at(offset, 4));
+        }
+
+        public long getLong(int offset) {
+            return buffer.getLong(at(offset, 8));
+        }
+
+        public float getFloat(int offset) {
+            return buffer.getFloat(at(offset, 4));
+        }
+
+        public double getDouble(int offset) {
+            return buffer.getDouble(at(offset, 8));
+        }
+
+        /**
+         * Copy bytes of the record into an array.
+         * @param offset the offset of the first byte in the record
+         * @param bytes the array to fill
+         */
+        public void getBytes(int offset, byte[] bytes) {
+            int start = at(offset, bytes.length);
+            for (int i = 0; i < bytes.length; i++) {
+                bytes[i] = buffer.get(start + i);
+            }
+        }
+
+        public void putByte(int offset, byte value) {
+            buffer.put(at(offset, 1), value);
+        }
+
+        public void putShort(int offset, short value) {
+            buffer.putShort(at(offset, 2), value);
+        }
+
+        public void putInt(int offset, int value) {
+            buffer.putInt(at(offset, 4), value);
+        }
+
+        public void putLong(int offset, long value) {
+            buffer.putLong(at(offset, 8), value);
+        }
+
+        public void putFloat(int offset, float value) {
+            buffer.putFloat(at(offset, 4), value);
+        }
+
+        public void putDouble(int offset, double value) {
+            buffer.putDouble(at(offset, 8), value);
+        }
+
+        /**
+         * Copy bytes from an array into the record.
+         * @param offset the offset of the first byte in the record
+         * @param bytes the bytes to write
+         */
+        public void putBytes(int offset, byte[] bytes) {
+            int start = at(offset, bytes.length);
+            for (int i = 0; i < bytes.length; i++) {
+                buffer.put(start + i, bytes[i]);
+            }
+        }
+    }
+}
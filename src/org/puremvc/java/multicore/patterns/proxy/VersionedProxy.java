@@ -0,0 +1,188 @@
+/* 
+ PureMVC Java MultiCore Port by Ima OpenSource <opensource@ima.eu>
+ Maintained by Anthony Quinault <anthony.quinault@puremvc.org>
+ PureMVC - Copyright(c) 2006-08 Futurescale, Inc., Some rights reserved. 
+ Your reuse is governed by the Creative Commons Attribution 3.0 License 
+ */
+package org.puremvc.java.multicore.patterns.proxy;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * A <code>Proxy</code> publishing its data as immutable, versioned
+ * snapshots, for readers on several threads.
+ *
+ * <P>
+ * Each <code>setData</code> or <code>publish</code> replaces the current
+ * <code>Snapshot</code> with a new one, holding the data and a version
+ * one higher than the previous one. Readers take the current
+ * <code>Snapshot</code> with a single volatile read and no lock: they see
+ * the data as it was published, together with its version, however many
+ * writers publish in the meantime. The data must therefore not be
+ * modified once it is published; writers publish a modified copy instead.
+ * </P>
+ *
+ * <P>
+ * Writers that derive the new data from the current one use
+ * <code>compareAndPublish</code>, which only succeeds if no other writer
+ * published in between, and retry otherwise:
+ * </P>
+ *
+ * <listing>
+ *		VersionedProxy.Snapshot<Prices> current;
+ *		do {
+ *			current = proxy.getSnapshot();
+ *		} while (!proxy.compareAndPublish(current.getVersion(), current.getData().with(price)));
+ * </listing>
+ *
+ * <P>
+ * When a change notification name is set, each publication sends a
+ * notification of that name with the new <code>Snapshot</code> as body
+ * and the proxy name as type.
+ * </P>
+ *
+ * @see org.puremvc.java.multicore.patterns.proxy.Proxy Proxy
+ */
+public class VersionedProxy<T> extends Proxy {
+
+    private final AtomicReference<Snapshot<T>> current;
+
+    private volatile String changeNotification = null;
+
+    /**
+     * Constructor.
+     * @param proxyName
+     */
+    public VersionedProxy(String proxyName) {
+        this(proxyName, null);
+    }
+
+    /**
+     * Constructor.
+     * @param proxyName
+     * @param data the initial data, published as version <code>0</code>
+     */
+    public VersionedProxy(String proxyName, T data) {
+        super(proxyName);
+        this.current = new AtomicReference<Snapshot<T>>(new Snapshot<T>(0, data));
+    }
+
+    /**
+     * Set the name of the notification sent when new data is published.
+     * @param noteName the notification name, or <code>null</code> to send none
+     */
+    public void setChangeNotification(String noteName) {
+        this.changeNotification = noteName;
+    }
+
+    /**
+     * Get the current snapshot.
+     * @return the data and version last published
+     */
+    public Snapshot<T> getSnapshot() {
+        return current.get();
+    }
+
+    /**
+     * Get the version of the current snapshot.
+     * @return the version last published
+     */
+    public long getVersion() {
+        return current.get().getVersion();
+    }
+
+    /**
+     * Get the data of the current snapshot.
+     */
+    public Object getData() {
+        return current.get().getData();
+    }
+
+    /**
+     * Publish new data.
+     * @param data the data, of type <code>T</code>
+     */
+    @SuppressWarnings("unchecked")
+    public void setData(Object data) {
+        // the untyped IProxy contract cannot check T: data of another
+        // type is published, and fails in the readers of getSnapshot
+        publish((T) data);
+    }
+
+    /**
+     * Publish new data.
+     * @param data the data, not to be modified afterwards
+     * @return the version of the new snapshot
+     */
+    public long publish(T data) {
+        Snapshot<T> previous;
+        Snapshot<T> next;
+        do {
+            previous = current.get();
+            next = new Snapshot<T>(previous.getVersion() + 1, data);
+        } while (!current.compareAndSet(previous, next));
+        published(next);
+        return next.getVersion();
+    }
+
+    /**
+     * Publish new data if no other data was published since a version.
+     * @param expectedVersion the version the new data derives from
+     * @param data the data, not to be modified afterwards
+     * @return whether the data was published
+     */
+    public boolean compareAndPublish(long expectedVersion, T data) {
+        Snapshot<T> previous = current.get();
+        if (previous.getVersion() != expectedVersion) {
+            return false;
+        }
+        Snapshot<T> next = new Snapshot<T>(expectedVersion + 1, data);
+        if (!current.compareAndSet(previous, next)) {
+            return false;
+        }
+        published(next);
+        return true;
+    }
+
+    private void published(Snapshot<T> snapshot) {
+        String noteName = changeNotification;
+        if (noteName != null && multitonKey != null) {
+            sendNotification(noteName, snapshot, getProxyName());
+        }
+    }
+
+    /**
+     * An immutable version of the data of a <code>VersionedProxy</code>.
+     */
+    public static final class Snapshot<T> {
+
+        private final long version;
+
+        private final T data;
+
+        Snapshot(long version, T data) {
+            this.version = version;
+            this.data = data;
+        }
+
+        /**
+         * Get the version.
+         * @return the version, increasing with each publication
+         */
+        public long getVersion() {
+            return version;
+        }
+
+        /**
+         * Get the data.
+         * @return the data published with this version
+         */
+        public T getData() {
+            return data;
+        }
+
+        public String toString() {
+            return "Snapshot " + version + ": " + data;
+        }
+    }
+}
@@ -0,0 +1,362 @@
+/* 
+ PureMVC Java MultiCore Port by Ima OpenSource <opensource@ima.eu>
+ Maintained by Anthony Quinault <anthony.quinault@puremvc.org>
+ PureMVC - Copyright(c) 2006-08 Futurescale, Inc., Some rights reserved. 
+ Your reuse is governed by the Creative Commons Attribution 3.0 License 
+ */
+package org.puremvc.java.multicore.core.controller;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.puremvc.java.multicore.core.view.View;
+import org.puremvc.java.multicore.interfaces.ICommand;
+import org.puremvc.java.multicore.interfaces.ICommandFactory;
+import org.puremvc.java.multicore.interfaces.IFunction;
+import org.puremvc.java.multicore.interfaces.INotification;
+import org.puremvc.java.multicore.interfaces.IPureCommand;
+import org.puremvc.java.multicore.interfaces.IReusableCommand;
+import org.puremvc.java.multicore.patterns.command.AsyncCommand;
+import org.puremvc.java.multicore.patterns.command.SimpleCommand;
+import org.puremvc.java.multicore.patterns.observer.Notification;
+import org.puremvc.java.multicore.patterns.observer.Observer;
+import org.puremvc.java.multicore.patterns.observer.ResultNotification;
+
+/**
+ * Test the execution of commands by the <code>Controller</code>.
+ */
+public class ControllerTest {
+
+	private static final String KEY = "ControllerTest";
+
+	private Controller controller;
+
+	private View view;
+
+	private static int created;
+
+	private static int executed;
+
+	private static int otherExecuted;
+
+	@Before
+	public void setUp() {
+		created = 0;
+		executed = 0;
+		otherExecuted = 0;
+		controller = Controller.getInstance(KEY);
+		view = View.getInstance(KEY);
+	}
+
+	@After
+	public void tearDown() {
+		Controller.removeController(KEY);
+		View.removeView(KEY);
+	}
+
+	/**
+	 * An <code>IAsyncCommand</code> run on the notifying thread throws its
+	 * exception to the sender.
+	 */
+	@Test
+	public void testInlineAsyncCommandFailure() {
+		controller.registerCommand("fail", FailingCommand.class);
+		try {
+			view.notifyObservers(new Notification("fail"));
+			fail("exception swallowed");
+		} catch (IllegalStateException e) {
+			assertEquals("failed", e.getMessage());
+		}
+	}
+
+	/**
+	 * An <code>IAsyncCommand</code> run on the command executor reports its
+	 * exception through the <code>Future</code>.
+	 */
+	@Test
+	public void testAsyncCommandFailure() throws InterruptedException {
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		try {
+			controller.setCommandExecutor(executor);
+			controller.registerCommand("fail", FailingCommand.class);
+			ResultNotification note = new ResultNotification("fail", null, null);
+			view.notifyObservers(note);
+			try {
+				note.getResult().get();
+				fail("exception swallowed");
+			} catch (ExecutionException e) {
+				assertTrue(e.getCause() instanceof IllegalStateException);
+			}
+		} finally {
+			executor.shutdown();
+			executor.awaitTermination(5, TimeUnit.SECONDS);
+		}
+	}
+
+	/**
+	 * The constructor of a command class is looked up when the class is
+	 * registered: a class without a usable one is rejected at once, and
+	 * registering does not instantiate the command.
+	 */
+	@Test
+	public void testConstructorResolvedAtRegistration() {
+		try {
+			controller.registerCommand("bad", ArgumentCommand.class);
+			fail("command without a no-arg constructor registered");
+		} catch (IllegalArgumentException e) {
+			assertFalse(controller.hasCommand("bad"));
+		}
+		controller.registerCommand("pure", PureCommand.class);
+		assertEquals(0, created);
+		view.notifyObservers(new Notification("pure", "first"));
+		view.notifyObservers(new Notification("pure", "second"));
+		assertEquals(2, created);
+		assertEquals(2, executed);
+	}
+
+	/**
+	 * A command registered while another thread is notifying is executed
+	 * by that thread once the registration is published.
+	 */
+	@Test
+	public void testRegisterWhileNotifying() throws Exception {
+		final AtomicInteger late = new AtomicInteger();
+		Thread sender = new Thread(new Runnable() {
+			public void run() {
+				long deadline = System.currentTimeMillis() + 10000;
+				while (late.get() == 0 && System.currentTimeMillis() < deadline) {
+					view.notifyObservers(new Notification("late", late));
+				}
+			}
+		});
+		sender.start();
+		controller.registerCommand("late", LateCommand.class);
+		sender.join();
+		assertTrue(late.get() > 0);
+	}
+
+	/**
+	 * A remembered pure command is neither executed nor instantiated again
+	 * for an identical notification.
+	 */
+	@Test
+	public void testMemoizedCommandNotCreated() {
+		controller.setMemoization(16);
+		controller.registerCommand("pure", PureCommand.class);
+		view.notifyObservers(new Notification("pure", "body"));
+		view.notifyObservers(new Notification("pure", "body"));
+		assertEquals(1, created);
+		assertEquals(1, executed);
+		view.notifyObservers(new Notification("pure", "other"));
+		assertEquals(2, executed);
+	}
+
+	/**
+	 * Every pure command of a chain is remembered on its own, so none of
+	 * them is skipped because another one ran for the same notification.
+	 */
+	@Test
+	public void testMemoizedCommandChain() {
+		controller.setMemoization(16);
+		controller.addCommand("chain", PureCommand.class);
+		controller.addCommand("chain", OtherPureCommand.class);
+		view.notifyObservers(new Notification("chain", "body"));
+		assertEquals(1, executed);
+		assertEquals(1, otherExecuted);
+		view.notifyObservers(new Notification("chain", "body"));
+		assertEquals(1, executed);
+		assertEquals(1, otherExecuted);
+	}
+
+	/**
+	 * A memoized pure command run on the notifying thread throws its
+	 * exception to the sender, and is run again next time.
+	 */
+	@Test
+	public void testMemoizedCommandFailure() {
+		controller.setMemoization(16);
+		controller.registerCommand("pure", PureCommand.class);
+		for (int i = 0; i < 2; i++) {
+			try {
+				view.notifyObservers(new Notification("pure", "bad"));
+				fail("exception swallowed");
+			} catch (IllegalArgumentException e) {
+				assertEquals("bad", e.getMessage());
+			}
+		}
+		assertEquals(2, executed);
+	}
+
+	/**
+	 * The thread per command mode leaves the command executor in place,
+	 * and restores it when disabled.
+	 */
+	@Test
+	public void testThreadPerCommandRestoresExecutor() throws Exception {
+		ExecutorService executor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+			public Thread newThread(Runnable runnable) {
+				return new Thread(runnable, "application");
+			}
+		});
+		try {
+			controller.setCommandExecutor(executor);
+			controller.registerCommand("where", ThreadNameCommand.class);
+			assertEquals("application", threadOf("where"));
+			controller.setThreadPerCommand(true);
+			assertTrue(!"application".equals(threadOf("where")));
+			controller.setThreadPerCommand(false);
+			assertEquals("application", threadOf("where"));
+		} finally {
+			executor.shutdown();
+			executor.awaitTermination(5, TimeUnit.SECONDS);
+		}
+	}
+
+	private Object threadOf(String noteName) throws Exception {
+		ResultNotification note = new ResultNotification(noteName, null, null);
+		view.notifyObservers(note);
+		return note.getResult().get(5, TimeUnit.SECONDS);
+	}
+
+	/**
+	 * Removing a command removes the observer of that name only, leaving
+	 * the other commands and the other observers of the name.
+	 */
+	@Test
+	public void testRemoveCommand() {
+		final List<String> delivered = new ArrayList<String>();
+		controller.registerCommand("remove.one", record(delivered, "one"));
+		controller.registerCommand("remove.two", record(delivered, "two"));
+		view.registerObserver("remove.one", new Observer(record(delivered, "observer"), this));
+		controller.removeCommand("remove.one");
+		assertFalse(controller.hasCommand("remove.one"));
+		assertTrue(controller.hasCommand("remove.two"));
+		view.notifyObservers(new Notification("remove.one"));
+		view.notifyObservers(new Notification("remove.two"));
+		assertEquals("[observer, two]", delivered.toString());
+	}
+
+	/**
+	 * An <code>IReusableCommand</code> is created once, when it is
+	 * registered, and executes every notification.
+	 */
+	@Test
+	public void testReusableCommandCreatedOnce() {
+		controller.registerCommand("reuse", ReusableCommand.class);
+		assertEquals(1, created);
+		view.notifyObservers(new Notification("reuse"));
+		view.notifyObservers(new Notification("reuse"));
+		view.notifyObservers(new Notification("reuse"));
+		assertEquals(1, created);
+		assertEquals(3, executed);
+	}
+
+	/**
+	 * A factory creates a command for each notification, and a factory or
+	 * an <code>IFunction</code> is reported and removed like a class.
+	 */
+	@Test
+	public void testFactoryAndFunctionCommands() {
+		final List<String> delivered = new ArrayList<String>();
+		controller.registerCommand("factory", new ICommandFactory() {
+			public ICommand createCommand() {
+				created++;
+				return new SimpleCommand() {
+					public void execute(INotification note) {
+						delivered.add("factory");
+					}
+				};
+			}
+		});
+		controller.registerCommand("function", record(delivered, "function"));
+		assertTrue(controller.hasCommand("factory"));
+		assertTrue(controller.hasCommand("function"));
+		view.notifyObservers(new Notification("factory"));
+		view.notifyObservers(new Notification("factory"));
+		view.notifyObservers(new Notification("function"));
+		assertEquals("[factory, factory, function]", delivered.toString());
+		assertEquals(2, created);
+		controller.removeCommand("factory");
+		controller.removeCommand("function");
+		assertFalse(controller.hasCommand("factory"));
+		assertFalse(controller.hasCommand("function"));
+		view.notifyObservers(new Notification("factory"));
+		view.notifyObservers(new Notification("function"));
+		assertEquals(3, delivered.size());
+		assertEquals(2, created);
+	}
+
+	private static IFunction record(final List<String> delivered, final String label) {
+		return new IFunction() {
+			public void onNotify(INotification note) {
+				delivered.add(label);
+			}
+		};
+	}
+
+	private static class ArgumentCommand extends SimpleCommand {
+		ArgumentCommand(String argument) {
+		}
+	}
+
+	private static class LateCommand extends SimpleCommand {
+		public void execute(INotification note) {
+			((AtomicInteger) note.getBody()).incrementAndGet();
+		}
+	}
+
+	private static class PureCommand extends SimpleCommand implements IPureCommand {
+		PureCommand() {
+			created++;
+		}
+
+		public void execute(INotification note) {
+			executed++;
+			if ("bad".equals(note.getBody())) {
+				throw new IllegalArgumentException("bad");
+			}
+		}
+	}
+
+	private static class ReusableCommand extends SimpleCommand implements IReusableCommand {
+		ReusableCommand() {
+			created++;
+		}
+
+		public void execute(INotification note) {
+			executed++;
+		}
+	}
+
+	private static class OtherPureCommand extends SimpleCommand implements IPureCommand {
+		public void execute(INotification note) {
+			otherExecuted++;
+		}
+	}
+
+	private static class ThreadNameCommand extends AsyncCommand {
+		public Object call(INotification note) {
+			return Thread.currentThread().getName();
+		}
+	}
+
+	private static class FailingCommand extends AsyncCommand {
+		public Object call(INotification note) {
+			throw new IllegalStateException("failed");
+		}
+	}
+}
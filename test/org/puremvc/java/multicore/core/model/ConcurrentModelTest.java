@@ -0,0 +1,135 @@
+/* 
+ PureMVC Java MultiCore Port by Ima OpenSource <opensource@ima.eu>
+ Maintained by Anthony Quinault <anthony.quinault@puremvc.org>
+ PureMVC - Copyright(c) 2006-08 Futurescale, Inc., Some rights reserved. 
+ Your reuse is governed by the Creative Commons Attribution 3.0 License 
+ */
+package org.puremvc.java.multicore.core.model;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.puremvc.java.multicore.interfaces.IProxy;
+import org.puremvc.java.multicore.interfaces.IProxyFactory;
+import org.puremvc.java.multicore.patterns.proxy.Proxy;
+
+/**
+ * Test a <code>ConcurrentModel</code> used from several threads at once.
+ */
+public class ConcurrentModelTest {
+
+	private static final String KEY = "ConcurrentModelTest";
+
+	private static final int THREADS = 4;
+
+	private static final int PROXIES = 500;
+
+	private ConcurrentModel model;
+
+	@Before
+	public void setUp() {
+		model = ConcurrentModel.getInstance(KEY);
+	}
+
+	@After
+	public void tearDown() {
+		Model.removeModel(KEY);
+	}
+
+	/**
+	 * Proxies registered by some threads are retrieved by name and by
+	 * class by the others while they are registered.
+	 */
+	@Test
+	public void testRegisterWhileRetrieving() throws Exception {
+		final CountDownLatch start = new CountDownLatch(1);
+		final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+		Thread[] threads = new Thread[THREADS];
+		for (int t = 0; t < THREADS; t++) {
+			final int thread = t;
+			threads[t] = new Thread() {
+				public void run() {
+					try {
+						start.await();
+						for (int i = thread; i < PROXIES; i += THREADS) {
+							NumberedProxy proxy = new NumberedProxy(i);
+							model.registerProxy(proxy);
+							assertSame(proxy, model.retrieveProxy(proxy.getProxyName()));
+							assertNotNull(model.retrieveProxy(NumberedProxy.class));
+							model.retrieveProxy("proxy" + (PROXIES - 1 - i));
+						}
+					} catch (Throwable e) {
+						failure.set(e);
+					}
+				}
+			};
+			threads[t].start();
+		}
+		start.countDown();
+		for (int t = 0; t < THREADS; t++) {
+			threads[t].join();
+		}
+		if (failure.get() != null) {
+			throw new AssertionError(failure.get());
+		}
+		for (int i = 0; i < PROXIES; i++) {
+			assertEquals("proxy" + i, model.retrieveProxy("proxy" + i).getProxyName());
+		}
+	}
+
+	/**
+	 * A proxy retrieved by several threads at once is created once by its
+	 * factory, and then found by its class.
+	 */
+	@Test
+	public void testFactoryCreatesOnce() throws Exception {
+		final AtomicInteger created = new AtomicInteger();
+		model.registerProxyFactory("proxy0", new IProxyFactory() {
+			public IProxy createProxy() {
+				created.incrementAndGet();
+				return new NumberedProxy(0);
+			}
+		});
+		final CountDownLatch start = new CountDownLatch(1);
+		final IProxy[] retrieved = new IProxy[THREADS];
+		Thread[] threads = new Thread[THREADS];
+		for (int t = 0; t < THREADS; t++) {
+			final int thread = t;
+			threads[t] = new Thread() {
+				public void run() {
+					try {
+						start.await();
+					} catch (InterruptedException e) {
+						return;
+					}
+					retrieved[thread] = model.retrieveProxy("proxy0");
+				}
+			};
+			threads[t].start();
+		}
+		start.countDown();
+		for (int t = 0; t < THREADS; t++) {
+			threads[t].join();
+		}
+		assertEquals(1, created.get());
+		for (int t = 0; t < THREADS; t++) {
+			assertSame(retrieved[0], retrieved[t]);
+		}
+		assertSame(retrieved[0], model.retrieveProxy(NumberedProxy.class));
+	}
+
+	private static class NumberedProxy extends Proxy {
+
+		NumberedProxy(int number) {
+			super("proxy" + number);
+		}
+	}
+}
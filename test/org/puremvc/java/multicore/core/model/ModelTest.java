@@ -0,0 +1,108 @@
+/* 
+ PureMVC Java MultiCore Port by Ima OpenSource <opensource@ima.eu>
+ Maintained by Anthony Quinault <anthony.quinault@puremvc.org>
+ PureMVC - Copyright(c) 2006-08 Futurescale, Inc., Some rights reserved. 
+ Your reuse is governed by the Creative Commons Attribution 3.0 License 
+ */
+package org.puremvc.java.multicore.core.model;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.puremvc.java.multicore.interfaces.IProxy;
+import org.puremvc.java.multicore.interfaces.IProxyFactory;
+import org.puremvc.java.multicore.patterns.proxy.Proxy;
+
+/**
+ * Test the proxy factories and the typed lookup of the <code>Model</code>.
+ */
+public class ModelTest {
+
+	private static final String KEY = "ModelTest";
+
+	private Model model;
+
+	@Before
+	public void setUp() {
+		model = Model.getInstance(KEY);
+	}
+
+	@After
+	public void tearDown() {
+		Model.removeModel(KEY);
+	}
+
+	/**
+	 * A factory that failed stays registered, and its proxy is created by
+	 * the next retrieval.
+	 */
+	@Test
+	public void testFailedProxyFactory() {
+		final int[] calls = new int[1];
+		model.registerProxyFactory("lazy", new IProxyFactory() {
+			public IProxy createProxy() {
+				if (calls[0]++ == 0) {
+					throw new IllegalStateException("not yet");
+				}
+				return new Proxy("lazy");
+			}
+		});
+		try {
+			model.retrieveProxy("lazy");
+			fail("factory failure swallowed");
+		} catch (IllegalStateException e) {
+			assertEquals("not yet", e.getMessage());
+		}
+		assertTrue(model.hasProxy("lazy"));
+		IProxy proxy = model.retrieveProxy("lazy");
+		assertEquals("lazy", proxy.getProxyName());
+		assertSame(proxy, model.retrieveProxy("lazy"));
+		assertEquals(2, calls[0]);
+	}
+
+	/**
+	 * The typed lookup finds the proxy registered last with exactly the
+	 * class, and a factory's proxy only once it was retrieved by name.
+	 */
+	@Test
+	public void testTypedLookup() {
+		Proxy plain = new Proxy("plain");
+		model.registerProxy(plain);
+		assertSame(plain, model.retrieveProxy(Proxy.class));
+		model.registerProxy(new TypedProxy("typed"));
+		assertSame(plain, model.retrieveProxy(Proxy.class));
+		TypedProxy latest = new TypedProxy("latest");
+		model.registerProxy(latest);
+		assertSame(latest, model.retrieveProxy(TypedProxy.class));
+		model.removeProxy("latest");
+		assertNull(model.retrieveProxy(TypedProxy.class));
+		model.registerProxyFactory("lazy", new IProxyFactory() {
+			public IProxy createProxy() {
+				return new LazyProxy();
+			}
+		});
+		assertNull(model.retrieveProxy(LazyProxy.class));
+		IProxy lazy = model.retrieveProxy("lazy");
+		assertSame(lazy, model.retrieveProxy(LazyProxy.class));
+	}
+
+	private static class TypedProxy extends Proxy {
+
+		TypedProxy(String name) {
+			super(name);
+		}
+	}
+
+	private static class LazyProxy extends Proxy {
+
+		LazyProxy() {
+			super("lazy");
+		}
+	}
+}
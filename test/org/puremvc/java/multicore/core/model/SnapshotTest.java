@@ -0,0 +1,213 @@
+/* 
+ PureMVC Java MultiCore Port by Ima OpenSource <opensource@ima.eu>
+ Maintained by Anthony Quinault <anthony.quinault@puremvc.org>
+ PureMVC - Copyright(c) 2006-08 Futurescale, Inc., Some rights reserved. 
+ Your reuse is governed by the Creative Commons Attribution 3.0 License 
+ */
+package org.puremvc.java.multicore.core.model;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.File;
+import java.io.IOException;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.puremvc.java.multicore.interfaces.ISnapshotProxy;
+import org.puremvc.java.multicore.patterns.facade.Facade;
+import org.puremvc.java.multicore.patterns.proxy.Proxy;
+
+/**
+ * Test saving and restoring the snapshot of a <code>Model</code>.
+ */
+public class SnapshotTest {
+
+	private static final String SOURCE = "SnapshotTest.source";
+
+	private static final String TARGET = "SnapshotTest.target";
+
+	private Model source;
+
+	private Model target;
+
+	@Before
+	public void setUp() {
+		source = Model.getInstance(SOURCE);
+		target = Model.getInstance(TARGET);
+		source.registerProxy(new ValuesProxy("first", new int[] { 1, 2, 3 }));
+		source.registerProxy(new ValuesProxy("second", new int[] { 4 }));
+	}
+
+	@After
+	public void tearDown() {
+		Model.removeModel(SOURCE);
+		Model.removeModel(TARGET);
+		Facade.removeCore(SOURCE);
+	}
+
+	/**
+	 * Registered proxies read their snapshot at once, the others when they
+	 * are registered.
+	 */
+	@Test
+	public void testRoundTrip() throws IOException {
+		ValuesProxy first = new ValuesProxy("first", null);
+		target.registerProxy(first);
+		target.restoreSnapshot(new ByteArrayInputStream(save()));
+		assertArrayEquals(new int[] { 1, 2, 3 }, first.values);
+		ValuesProxy second = new ValuesProxy("second", null);
+		target.registerProxy(second);
+		assertArrayEquals(new int[] { 4 }, second.values);
+	}
+
+	/**
+	 * A truncated snapshot fails the restore, leaving restored the proxy
+	 * read before the truncated one.
+	 */
+	@Test
+	public void testTruncatedSnapshot() {
+		ValuesProxy first = new ValuesProxy("first", null);
+		ValuesProxy second = new ValuesProxy("second", null);
+		target.registerProxy(first);
+		target.registerProxy(second);
+		restoreTruncated();
+		assertTrue(first.values == null ^ second.values == null);
+	}
+
+	/**
+	 * The truncated snapshot of an unregistered proxy is not kept, the one
+	 * read before it is.
+	 */
+	@Test
+	public void testTruncatedPendingSnapshot() {
+		restoreTruncated();
+		ValuesProxy first = new ValuesProxy("first", null);
+		ValuesProxy second = new ValuesProxy("second", null);
+		target.registerProxy(first);
+		target.registerProxy(second);
+		assertTrue(first.values == null ^ second.values == null);
+	}
+
+	/**
+	 * The part of its snapshot a proxy leaves unread is skipped, so the
+	 * next proxy reads its own.
+	 */
+	@Test
+	public void testUnreadSnapshot() throws IOException {
+		ValuesProxy first = new ValuesProxy("first", null) {
+			public void readSnapshot(DataInput in) throws IOException {
+				values = new int[in.readInt()];
+			}
+		};
+		ValuesProxy second = new ValuesProxy("second", null) {
+			public void readSnapshot(DataInput in) throws IOException {
+				values = new int[in.readInt()];
+			}
+		};
+		target.registerProxy(first);
+		target.registerProxy(second);
+		target.restoreSnapshot(new ByteArrayInputStream(save()));
+		assertEquals(3, first.values.length);
+		assertEquals(1, second.values.length);
+	}
+
+	// cuts the last int of the last snapshot, its end and the snapshot end
+	private void restoreTruncated() {
+		byte[] snapshot = save();
+		byte[] truncated = new byte[snapshot.length - 9];
+		System.arraycopy(snapshot, 0, truncated, 0, truncated.length);
+		try {
+			target.restoreSnapshot(new ByteArrayInputStream(truncated));
+			fail("truncated snapshot restored");
+		} catch (IOException e) {
+			// expected
+		}
+	}
+
+	/**
+	 * A failed save leaves the previous snapshot file and no temporary
+	 * file behind.
+	 */
+	@Test
+	public void testFailedSave() throws IOException {
+		File file = File.createTempFile("SnapshotTest", ".bin");
+		File temp = new File(file.getPath() + ".tmp");
+		try {
+			Facade facade = Facade.getInstance(SOURCE);
+			facade.saveSnapshot(file);
+			long length = file.length();
+			assertTrue(length > 0);
+			assertFalse(temp.exists());
+			source.registerProxy(new FailingProxy());
+			try {
+				facade.saveSnapshot(file);
+				fail("failed save succeeded");
+			} catch (IOException e) {
+				assertEquals("disk full", e.getMessage());
+			}
+			assertEquals(length, file.length());
+			assertFalse(temp.exists());
+		} finally {
+			file.delete();
+			temp.delete();
+		}
+	}
+
+	private byte[] save() {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		try {
+			source.saveSnapshot(out);
+		} catch (IOException e) {
+			throw new AssertionError(e);
+		}
+		return out.toByteArray();
+	}
+
+	private static class ValuesProxy extends Proxy implements ISnapshotProxy {
+
+		int[] values;
+
+		ValuesProxy(String name, int[] values) {
+			super(name);
+			this.values = values;
+		}
+
+		public void writeSnapshot(DataOutput out) throws IOException {
+			out.writeInt(values.length);
+			for (int i = 0; i < values.length; i++) {
+				out.writeInt(values[i]);
+			}
+		}
+
+		public void readSnapshot(DataInput in) throws IOException {
+			int[] read = new int[in.readInt()];
+			for (int i = 0; i < read.length; i++) {
+				read[i] = in.readInt();
+			}
+			values = read;
+		}
+	}
+
+	private static class FailingProxy extends Proxy implements ISnapshotProxy {
+
+		FailingProxy() {
+			super("failing");
+		}
+
+		public void writeSnapshot(DataOutput out) throws IOException {
+			throw new IOException("disk full");
+		}
+
+		public void readSnapshot(DataInput in) {
+		}
+	}
+}
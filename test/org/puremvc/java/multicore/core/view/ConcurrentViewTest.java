@@ -0,0 +1,154 @@
+/* 
+ PureMVC Java MultiCore Port by Ima OpenSource <opensource@ima.eu>
+ Maintained by Anthony Quinault <anthony.quinault@puremvc.org>
+ PureMVC - Copyright(c) 2006-08 Futurescale, Inc., Some rights reserved. 
+ Your reuse is governed by the Creative Commons Attribution 3.0 License 
+ */
+package org.puremvc.java.multicore.core.view;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.puremvc.java.multicore.interfaces.IFunction;
+import org.puremvc.java.multicore.interfaces.INotification;
+import org.puremvc.java.multicore.patterns.mediator.Mediator;
+import org.puremvc.java.multicore.patterns.observer.Notification;
+
+/**
+ * Test the registrations of a <code>ConcurrentView</code> made from
+ * several threads.
+ */
+public class ConcurrentViewTest {
+
+	private static final String KEY = "ConcurrentViewTest";
+
+	private ConcurrentView view;
+
+	@Before
+	public void setUp() {
+		view = ConcurrentView.getInstance(KEY);
+	}
+
+	@After
+	public void tearDown() {
+		View.removeView(KEY);
+	}
+
+	/**
+	 * Mediators registered while other threads notify are all registered,
+	 * and each of them receives the notifications sent afterwards once.
+	 */
+	@Test
+	public void testRegisterWhileNotifying() throws Exception {
+		final int mediators = 200;
+		final AtomicInteger received = new AtomicInteger();
+		final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+		final CountDownLatch registered = new CountDownLatch(2);
+		final CountDownLatch start = new CountDownLatch(1);
+		Thread[] threads = new Thread[4];
+		for (int t = 0; t < threads.length; t++) {
+			final boolean registrar = t < 2;
+			final int first = t;
+			threads[t] = new Thread(new Runnable() {
+				public void run() {
+					try {
+						start.await();
+						if (registrar) {
+							for (int i = first; i < mediators; i += 2) {
+								view.registerMediator(new Mediator("mediator" + i) {
+									public void onRegister() {
+										registerObserver("tick", new IFunction() {
+											public void onNotify(INotification note) {
+												received.incrementAndGet();
+											}
+										});
+									}
+								});
+							}
+							registered.countDown();
+						} else {
+							while (registered.getCount() > 0) {
+								view.notifyObservers(new Notification("tick"));
+							}
+						}
+					} catch (Throwable e) {
+						failure.set(e);
+					}
+				}
+			});
+			threads[t].start();
+		}
+		start.countDown();
+		for (int t = 0; t < threads.length; t++) {
+			threads[t].join();
+		}
+		if (failure.get() != null) {
+			throw new AssertionError(failure.get());
+		}
+		for (int i = 0; i < mediators; i++) {
+			assertTrue(view.hasMediator("mediator" + i));
+		}
+		received.set(0);
+		view.notifyObservers(new Notification("tick"));
+		assertEquals(mediators, received.get());
+	}
+
+	/**
+	 * A mediator whose <code>onRegister</code> waits for another thread
+	 * registering a mediator does not deadlock.
+	 */
+	@Test
+	public void testRegisterFromOnRegister() throws Exception {
+		final boolean[] joined = new boolean[1];
+		view.registerMediator(new Mediator("outer") {
+			public void onRegister() {
+				Thread registrar = new Thread(new Runnable() {
+					public void run() {
+						view.registerMediator(new Mediator("inner"));
+					}
+				});
+				registrar.start();
+				try {
+					registrar.join(5000);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+				joined[0] = !registrar.isAlive();
+			}
+		});
+		assertTrue(joined[0]);
+		assertTrue(view.hasMediator("inner"));
+		assertTrue(view.hasMediator("outer"));
+	}
+
+	/**
+	 * A mediator removed while its <code>onRegister</code> runs does not
+	 * get its interests registered afterwards.
+	 */
+	@Test
+	public void testRemoveDuringOnRegister() {
+		final AtomicInteger notified = new AtomicInteger();
+		Mediator mediator = new Mediator("removed") {
+			public void onRegister() {
+				registerObserver("note", new IFunction() {
+					public void onNotify(INotification note) {
+						notified.incrementAndGet();
+					}
+				});
+				view.removeMediator(getMediatorName());
+			}
+		};
+		view.registerMediator(mediator);
+		assertNull(view.retrieveMediator("removed"));
+		view.notifyObservers(new Notification("note"));
+		assertTrue(notified.get() == 0);
+	}
+}
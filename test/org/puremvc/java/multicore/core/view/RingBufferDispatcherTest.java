@@ -0,0 +1,148 @@
+/* 
+ PureMVC Java MultiCore Port by Ima OpenSource <opensource@ima.eu>
+ Maintained by Anthony Quinault <anthony.quinault@puremvc.org>
+ PureMVC - Copyright(c) 2006-08 Futurescale, Inc., Some rights reserved. 
+ Your reuse is governed by the Creative Commons Attribution 3.0 License 
+ */
+package org.puremvc.java.multicore.core.view;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.puremvc.java.multicore.interfaces.IFunction;
+import org.puremvc.java.multicore.interfaces.INotification;
+import org.puremvc.java.multicore.patterns.observer.Notification;
+import org.puremvc.java.multicore.patterns.observer.Observer;
+
+/**
+ * Test the <code>RingBufferDispatcher</code> of a <code>View</code>.
+ */
+public class RingBufferDispatcherTest {
+
+	private static final String KEY = "RingBufferDispatcherTest";
+
+	private View view;
+
+	private final AtomicInteger delivered = new AtomicInteger();
+
+	@Before
+	public void setUp() {
+		view = View.getInstance(KEY);
+		view.registerObserver("tick", new Observer(new IFunction() {
+			public void onNotify(INotification note) {
+				delivered.incrementAndGet();
+			}
+		}, this));
+	}
+
+	@After
+	public void tearDown() {
+		View.removeView(KEY);
+	}
+
+	/**
+	 * Producers outrunning a small ring wait for their slots, and every
+	 * notification is delivered before the dispatcher is halted.
+	 */
+	@Test
+	public void testOverflowDeliversEverything() throws InterruptedException {
+		view.setDispatcher(new RingBufferDispatcher(8, RingBufferDispatcher.WaitStrategy.YIELD, 4));
+		Thread[] producers = startProducers(4, 5000, null);
+		for (int i = 0; i < producers.length; i++) {
+			producers[i].join();
+		}
+		view.setDispatcher(null);
+		assertEquals(20000, delivered.get());
+	}
+
+	/**
+	 * Notifications sent while the dispatcher is being halted are each
+	 * delivered once, by the consumer or on the sending thread.
+	 */
+	@Test
+	public void testHaltRacingProducers() throws InterruptedException {
+		for (int round = 0; round < 20; round++) {
+			delivered.set(0);
+			view.setDispatcher(new RingBufferDispatcher(16));
+			AtomicBoolean stop = new AtomicBoolean();
+			AtomicInteger sent = new AtomicInteger();
+			Thread[] producers = startProducers(4, Integer.MAX_VALUE, stop, sent);
+			Thread.sleep(2);
+			view.setDispatcher(null);
+			stop.set(true);
+			for (int i = 0; i < producers.length; i++) {
+				producers[i].join();
+			}
+			assertEquals(sent.get(), delivered.get());
+		}
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void testPublishAfterHalt() {
+		RingBufferDispatcher dispatcher = new RingBufferDispatcher(4);
+		view.setDispatcher(dispatcher);
+		view.setDispatcher(null);
+		dispatcher.publish(new Notification("tick"));
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void testStartTwice() {
+		RingBufferDispatcher dispatcher = new RingBufferDispatcher(4);
+		view.setDispatcher(dispatcher);
+		view.setDispatcher(null);
+		view.setDispatcher(dispatcher);
+	}
+
+	/**
+	 * An observer throwing an <code>Error</code> does not stop the consumer.
+	 */
+	@Test
+	public void testObserverError() throws InterruptedException {
+		final CountDownLatch done = new CountDownLatch(1);
+		view.registerObserver("fail", new Observer(new IFunction() {
+			public void onNotify(INotification note) {
+				throw new AssertionError("observer failure");
+			}
+		}, this));
+		view.registerObserver("done", new Observer(new IFunction() {
+			public void onNotify(INotification note) {
+				done.countDown();
+			}
+		}, this));
+		view.setDispatcher(new RingBufferDispatcher(2));
+		for (int i = 0; i < 10; i++) {
+			view.notifyObservers(new Notification("fail"));
+		}
+		view.notifyObservers(new Notification("done"));
+		assertTrue(done.await(5, TimeUnit.SECONDS));
+		view.setDispatcher(null);
+	}
+
+	private Thread[] startProducers(int count, int notes, AtomicBoolean stop) {
+		return startProducers(count, notes, stop, new AtomicInteger());
+	}
+
+	private Thread[] startProducers(int count, final int notes, final AtomicBoolean stop, final AtomicInteger sent) {
+		Thread[] producers = new Thread[count];
+		for (int i = 0; i < count; i++) {
+			producers[i] = new Thread() {
+				public void run() {
+					for (int n = 0; n < notes && (stop == null || !stop.get()); n++) {
+						view.notifyObservers(new Notification("tick"));
+						sent.incrementAndGet();
+					}
+				}
+			};
+			producers[i].start();
+		}
+		return producers;
+	}
+}
@@ -0,0 +1,264 @@
+/* 
+ PureMVC Java MultiCore Port by Ima OpenSource <opensource@ima.eu>
+ Maintained by Anthony Quinault <anthony.quinault@puremvc.org>
+ PureMVC - Copyright(c) 2006-08 Futurescale, Inc., Some rights reserved. 
+ Your reuse is governed by the Creative Commons Attribution 3.0 License 
+ */
+package org.puremvc.java.multicore.core.view;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.puremvc.java.multicore.interfaces.IFunction;
+import org.puremvc.java.multicore.interfaces.INotification;
+import org.puremvc.java.multicore.patterns.mediator.Mediator;
+import org.puremvc.java.multicore.patterns.observer.Notification;
+import org.puremvc.java.multicore.patterns.observer.NotificationName;
+import org.puremvc.java.multicore.patterns.observer.Observer;
+
+/**
+ * Test the observer lists and the prefix observers of the <code>View</code>.
+ */
+public class ViewTest {
+
+	private static final String KEY = "ViewTest";
+
+	private View view;
+
+	private final List<String> delivered = new ArrayList<String>();
+
+	@Before
+	public void setUp() {
+		view = View.getInstance(KEY);
+		view.registerObserver("order.fill.*", new Observer(new IFunction() {
+			public void onNotify(INotification note) {
+				delivered.add(note.getName());
+			}
+		}, this));
+	}
+
+	@After
+	public void tearDown() {
+		View.removeView(KEY);
+	}
+
+	/**
+	 * Observers registered or removed during a notification change the
+	 * next notification, not the one being delivered.
+	 */
+	@Test
+	public void testObserverListSnapshot() {
+		final Object second = new Object();
+		final Object third = new Object();
+		final IFunction record = new IFunction() {
+			public void onNotify(INotification note) {
+				delivered.add(note.getBody().toString());
+			}
+		};
+		view.registerObserver("snapshot", new Observer(new IFunction() {
+			public void onNotify(INotification note) {
+				delivered.add("first");
+				view.removeObserver("snapshot", second);
+				view.registerObserver("snapshot", new Observer(new IFunction() {
+					public void onNotify(INotification note) {
+						delivered.add("third");
+					}
+				}, third));
+			}
+		}, this));
+		view.registerObserver("snapshot", new Observer(record, second));
+		view.notifyObservers(new Notification("snapshot", "second"));
+		assertEquals("[first, second]", delivered.toString());
+		delivered.clear();
+		view.removeObserver("snapshot", this);
+		view.notifyObservers(new Notification("snapshot", "second"));
+		assertEquals("[third]", delivered.toString());
+	}
+
+	/**
+	 * A notification created from its interned name reaches the observers
+	 * registered by string, like one created from the string.
+	 */
+	@Test
+	public void testInternedName() {
+		view.registerObserver("ViewTest.interned", new Observer(new IFunction() {
+			public void onNotify(INotification note) {
+				delivered.add(String.valueOf(note.getBody()));
+			}
+		}, this));
+		NotificationName name = NotificationName.intern("ViewTest.interned");
+		view.notifyObservers(new Notification(name, "by name", null));
+		view.notifyObservers(new Notification("ViewTest.interned", "by string"));
+		assertEquals("[by name, by string]", delivered.toString());
+	}
+
+	/**
+	 * Names interned after the observer table was sized, and names never
+	 * registered, are notified to no one.
+	 */
+	@Test
+	public void testNeverRegisteredName() {
+		NotificationName name = NotificationName.intern("ViewTest.never." + System.nanoTime());
+		view.notifyObservers(new Notification(name, null, null));
+		view.notifyObservers(new Notification(name.getName()));
+		view.notifyObservers(new Notification("ViewTest.never." + System.nanoTime()));
+		assertEquals(0, delivered.size());
+	}
+
+	/**
+	 * A typed notification reaches the observers of its type and the
+	 * observers registered without a type, in registration order; other
+	 * types only reach the latter.
+	 */
+	@Test
+	public void testTypedObservers() {
+		view.registerObserver("quote", labelled("any"));
+		view.registerObserver("quote", "AAPL", labelled("AAPL"));
+		view.registerObserver("quote", "MSFT", labelled("MSFT"));
+		view.registerObserver("quote", labelled("any2"));
+		view.notifyObservers(new Notification("quote", null, "AAPL"));
+		assertEquals("[any, AAPL, any2]", delivered.toString());
+		delivered.clear();
+		view.notifyObservers(new Notification("quote", null, "MSFT"));
+		assertEquals("[any, MSFT, any2]", delivered.toString());
+		delivered.clear();
+		view.notifyObservers(new Notification("quote", null, "IBM"));
+		view.notifyObservers(new Notification("quote"));
+		assertEquals("[any, any2, any, any2]", delivered.toString());
+	}
+
+	/**
+	 * Observers with a higher priority are notified first, and observers
+	 * with the same priority in registration order, prefix observers
+	 * included.
+	 */
+	@Test
+	public void testPriorities() {
+		view.registerObserver("ranked", labelled("low"), -1);
+		view.registerObserver("ranked", labelled("default"));
+		view.registerObserver("ranked", labelled("high"), 5);
+		view.registerObserver("ranked", labelled("default2"));
+		view.registerObserver("ranked", labelled("high2"), 5);
+		view.registerObserver("rank*", labelled("prefix"), 5);
+		view.notifyObservers(new Notification("ranked"));
+		assertEquals("[high, high2, prefix, default, default2, low]", delivered.toString());
+	}
+
+	/**
+	 * Removing a mediator removes its observers, exact and prefix, and
+	 * leaves those of other contexts observing the same names.
+	 */
+	@Test
+	public void testRemoveMediatorObservers() {
+		view.registerMediator(interested("removed", "order.shared", "order.fill.*"));
+		view.registerMediator(interested("kept", "order.shared", "order.kept"));
+		view.registerObserver("order.shared", labelled("observer"));
+		view.removeMediator("removed");
+		view.notifyObservers(new Notification("order.shared"));
+		view.notifyObservers(new Notification("order.kept"));
+		view.notifyObservers(new Notification("order.fill.partial"));
+		assertEquals("[kept, observer, kept, order.fill.partial]", delivered.toString());
+	}
+
+	@Test
+	public void testPrefixObserver() {
+		view.notifyObservers(new Notification("order.fill.partial"));
+		view.notifyObservers(new Notification("order.cancel"));
+		assertEquals("[order.fill.partial]", delivered.toString());
+	}
+
+	/**
+	 * Names that no prefix observer matches are not interned.
+	 */
+	@Test
+	public void testUnmatchedNamesNotInterned() {
+		String name = "ViewTest.unobserved." + System.nanoTime();
+		view.notifyObservers(new Notification(name));
+		assertNull(NotificationName.lookup(name));
+		String matched = "order.fill." + System.nanoTime();
+		view.notifyObservers(new Notification(matched));
+		assertNotNull(NotificationName.lookup(matched));
+		assertEquals(1, delivered.size());
+	}
+
+	/**
+	 * Removing the last prefix observer stops its deliveries.
+	 */
+	@Test
+	public void testRemovePrefixObserver() {
+		view.removeObserver("order.fill.*", this);
+		view.notifyObservers(new Notification("order.fill.partial"));
+		assertEquals(0, delivered.size());
+	}
+
+	/**
+	 * Matching a name against the prefix observers takes no lock, so
+	 * senders are not held up by a thread holding the <code>View</code>.
+	 */
+	@Test
+	public void testMatchWithoutLock() throws Exception {
+		final CountDownLatch locked = new CountDownLatch(1);
+		final CountDownLatch release = new CountDownLatch(1);
+		Thread holder = new Thread(new Runnable() {
+			public void run() {
+				synchronized (view) {
+					locked.countDown();
+					try {
+						release.await();
+					} catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+					}
+				}
+			}
+		});
+		holder.start();
+		locked.await();
+		final CountDownLatch sent = new CountDownLatch(1);
+		Thread sender = new Thread(new Runnable() {
+			public void run() {
+				view.notifyObservers(new Notification("ViewTest.unobserved." + System.nanoTime()));
+				sent.countDown();
+			}
+		});
+		sender.start();
+		try {
+			assertTrue(sent.await(5, TimeUnit.SECONDS));
+		} finally {
+			release.countDown();
+			holder.join();
+			sender.join();
+		}
+	}
+
+	private Observer labelled(final String label) {
+		return new Observer(new IFunction() {
+			public void onNotify(INotification note) {
+				delivered.add(label);
+			}
+		}, label);
+	}
+
+	private Mediator interested(final String name, final String... noteNames) {
+		return new Mediator(name) {
+			public void onRegister() {
+				for (int i = 0; i < noteNames.length; i++) {
+					registerObserver(noteNames[i], new IFunction() {
+						public void onNotify(INotification note) {
+							delivered.add(name);
+						}
+					});
+				}
+			}
+		};
+	}
+}
@@ -0,0 +1,171 @@
+/* 
+ PureMVC Java MultiCore Port by Ima OpenSource <opensource@ima.eu>
+ Maintained by Anthony Quinault <anthony.quinault@puremvc.org>
+ PureMVC - Copyright(c) 2006-08 Futurescale, Inc., Some rights reserved. 
+ Your reuse is governed by the Creative Commons Attribution 3.0 License 
+ */
+package org.puremvc.java.multicore.patterns.command;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+import org.puremvc.java.multicore.interfaces.ICommand;
+import org.puremvc.java.multicore.interfaces.INotification;
+import org.puremvc.java.multicore.patterns.observer.Notification;
+
+/**
+ * Test the parallel and dependency-ordered macro commands.
+ */
+public class MacroCommandTest {
+
+	private final List<String> executed = Collections.synchronizedList(new ArrayList<String>());
+
+	/**
+	 * The <i>SubCommands</i> of a <code>ParallelMacroCommand</code> run at
+	 * the same time: each one waits for all of them to have started.
+	 */
+	@Test
+	public void testParallelSubCommands() {
+		final CountDownLatch started = new CountDownLatch(3);
+		new ParallelMacroCommand() {
+			protected void initializeMacroCommand() {
+				for (int i = 0; i < 3; i++) {
+					addSubCommand(new SimpleCommand() {
+						public void execute(INotification note) {
+							started.countDown();
+							try {
+								if (started.await(5, TimeUnit.SECONDS)) {
+									executed.add("ran");
+								}
+							} catch (InterruptedException e) {
+								Thread.currentThread().interrupt();
+							}
+						}
+					});
+				}
+			}
+		}.execute(new Notification("parallel"));
+		assertEquals(3, executed.size());
+	}
+
+	/**
+	 * The failure of a <i>SubCommand</i> is rethrown once the others have
+	 * completed.
+	 */
+	@Test
+	public void testParallelFailure() {
+		try {
+			new ParallelMacroCommand() {
+				protected void initializeMacroCommand() {
+					addSubCommand(record("slow", 50));
+					addSubCommand(failing("failing"));
+				}
+			}.execute(new Notification("parallel"));
+			fail("failure swallowed");
+		} catch (IllegalStateException e) {
+			assertEquals("failing", e.getMessage());
+		}
+		assertEquals("[slow]", executed.toString());
+	}
+
+	/**
+	 * A <i>SubCommand</i> runs after all of its prerequisites, whatever
+	 * the order they were added in.
+	 */
+	@Test
+	public void testDependencyOrder() {
+		new DependentMacroCommand() {
+			protected void initializeMacroCommand() {
+				addSubCommand("start", record("start", 0), "model", "view");
+				addSubCommand("view", record("view", 20), "config");
+				addSubCommand("model", record("model", 0), "config");
+				addSubCommand("config", record("config", 20));
+			}
+		}.execute(new Notification("dependent"));
+		assertEquals(4, executed.size());
+		assertEquals("config", executed.get(0));
+		assertEquals("start", executed.get(3));
+		assertTrue(executed.contains("model") && executed.contains("view"));
+	}
+
+	/**
+	 * A failing <i>SubCommand</i> skips its dependents and is rethrown.
+	 */
+	@Test
+	public void testDependencyFailure() {
+		try {
+			new DependentMacroCommand() {
+				protected void initializeMacroCommand() {
+					addSubCommand("config", failing("config"));
+					addSubCommand("model", record("model", 0), "config");
+					addSubCommand("start", record("start", 0), "model");
+				}
+			}.execute(new Notification("dependent"));
+			fail("failure swallowed");
+		} catch (IllegalStateException e) {
+			assertEquals("config", e.getMessage());
+		}
+		assertEquals(0, executed.size());
+	}
+
+	/**
+	 * Cycles and unknown prerequisites are reported before any
+	 * <i>SubCommand</i> runs.
+	 */
+	@Test
+	public void testInvalidDependencies() {
+		try {
+			new DependentMacroCommand() {
+				protected void initializeMacroCommand() {
+					addSubCommand("free", record("free", 0));
+					addSubCommand("a", record("a", 0), "b");
+					addSubCommand("b", record("b", 0), "a");
+				}
+			}.execute(new Notification("dependent"));
+			fail("cycle accepted");
+		} catch (IllegalStateException e) {
+			assertTrue(e.getMessage().startsWith("Cyclic SubCommand dependencies"));
+		}
+		try {
+			new DependentMacroCommand() {
+				protected void initializeMacroCommand() {
+					addSubCommand("free", record("free", 0));
+					addSubCommand("a", record("a", 0), "missing");
+				}
+			}.execute(new Notification("dependent"));
+			fail("unknown prerequisite accepted");
+		} catch (IllegalStateException e) {
+			assertEquals("Unknown prerequisite missing of SubCommand a", e.getMessage());
+		}
+		assertEquals(0, executed.size());
+	}
+
+	private ICommand record(final String name, final long millis) {
+		return new SimpleCommand() {
+			public void execute(INotification note) {
+				try {
+					Thread.sleep(millis);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+				executed.add(name);
+			}
+		};
+	}
+
+	private static ICommand failing(final String message) {
+		return new SimpleCommand() {
+			public void execute(INotification note) {
+				throw new IllegalStateException(message);
+			}
+		};
+	}
+}
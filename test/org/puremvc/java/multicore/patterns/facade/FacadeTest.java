@@ -0,0 +1,106 @@
+/* 
+ PureMVC Java MultiCore Port by Ima OpenSource <opensource@ima.eu>
+ Maintained by Anthony Quinault <anthony.quinault@puremvc.org>
+ PureMVC - Copyright(c) 2006-08 Futurescale, Inc., Some rights reserved. 
+ Your reuse is governed by the Creative Commons Attribution 3.0 License 
+ */
+package org.puremvc.java.multicore.patterns.facade;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.puremvc.java.multicore.core.view.View;
+import org.puremvc.java.multicore.interfaces.IFunction;
+import org.puremvc.java.multicore.interfaces.INotification;
+import org.puremvc.java.multicore.patterns.observer.Notification;
+import org.puremvc.java.multicore.patterns.observer.Observer;
+
+/**
+ * Test the removal of a Core with notifications still pending.
+ */
+public class FacadeTest {
+
+	private static final String KEY = "FacadeTest";
+
+	private Facade facade;
+
+	private final List<Runnable> tasks = new CopyOnWriteArrayList<Runnable>();
+
+	private final List<Object> delivered = new CopyOnWriteArrayList<Object>();
+
+	@Before
+	public void setUp() {
+		facade = Facade.getInstance(KEY);
+		facade.setAsyncExecutor(new Executor() {
+			public void execute(Runnable command) {
+				tasks.add(command);
+			}
+		});
+		// an observer of a removed Core would re-create it
+		View.getInstance(KEY).registerObserver("price", new Observer(new IFunction() {
+			public void onNotify(INotification note) {
+				delivered.add(note.getBody());
+				Facade.getInstance(KEY);
+			}
+		}, this));
+	}
+
+	@After
+	public void tearDown() {
+		Facade.removeCore(KEY);
+	}
+
+	@Test
+	public void testQueueOrder() {
+		facade.sendNotificationAsync("price", 1);
+		facade.sendNotificationAsync("price", 2);
+		assertEquals(0, delivered.size());
+		runTasks();
+		assertEquals("[1, 2]", delivered.toString());
+	}
+
+	/**
+	 * Notifications queued when the Core is removed are dropped.
+	 */
+	@Test
+	public void testRemoveCoreDropsQueued() {
+		facade.sendNotificationAsync("price", 1);
+		Facade.removeCore(KEY);
+		facade.sendNotificationAsync("price", 2);
+		runTasks();
+		assertEquals(0, delivered.size());
+		assertFalse(Facade.hasCore(KEY));
+	}
+
+	/**
+	 * Coalesced notifications pending when the Core is removed are
+	 * dropped, and their timed flush delivers nothing.
+	 */
+	@Test
+	public void testRemoveCoreDropsCoalesced() throws Exception {
+		facade.setCoalescingWindow(20);
+		Notification note = new Notification("price", 1);
+		note.setCoalescable(true);
+		facade.sendNotification(note);
+		assertTrue(delivered.isEmpty());
+		Facade.removeCore(KEY);
+		Thread.sleep(200);
+		facade.flush();
+		assertEquals(0, delivered.size());
+		assertFalse(Facade.hasCore(KEY));
+	}
+
+	private void runTasks() {
+		while (!tasks.isEmpty()) {
+			tasks.remove(0).run();
+		}
+	}
+}
@@ -0,0 +1,88 @@
+/* 
+ PureMVC Java MultiCore Port by Ima OpenSource <opensource@ima.eu>
+ Maintained by Anthony Quinault <anthony.quinault@puremvc.org>
+ PureMVC - Copyright(c) 2006-08 Futurescale, Inc., Some rights reserved. 
+ Your reuse is governed by the Creative Commons Attribution 3.0 License 
+ */
+package org.puremvc.java.multicore.patterns.observer;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.puremvc.java.multicore.core.view.View;
+import org.puremvc.java.multicore.interfaces.IFunction;
+import org.puremvc.java.multicore.interfaces.INotification;
+
+/**
+ * Test the <code>NotificationCoalescer</code>.
+ */
+public class NotificationCoalescerTest {
+
+	private static final String KEY = "NotificationCoalescerTest";
+
+	private View view;
+
+	private final List<Object> delivered = new CopyOnWriteArrayList<Object>();
+
+	@Before
+	public void setUp() {
+		view = View.getInstance(KEY);
+		view.registerObserver("price", new Observer(new IFunction() {
+			public void onNotify(INotification note) {
+				delivered.add(note.getBody());
+			}
+		}, this));
+	}
+
+	@After
+	public void tearDown() {
+		View.removeView(KEY);
+	}
+
+	@Test
+	public void testFlushKeepsLatest() {
+		NotificationCoalescer coalescer = new NotificationCoalescer(view);
+		coalescer.add(new Notification("price", 1));
+		coalescer.add(new Notification("price", 2));
+		assertEquals(0, delivered.size());
+		coalescer.flush();
+		assertEquals("[2]", delivered.toString());
+	}
+
+	/**
+	 * A notification added after the coalescer is closed is delivered at
+	 * once, not held back forever.
+	 */
+	@Test
+	public void testAddAfterClose() {
+		NotificationCoalescer coalescer = new NotificationCoalescer(view);
+		coalescer.add(new Notification("price", 1));
+		coalescer.close();
+		coalescer.add(new Notification("price", 2));
+		assertEquals("[1, 2]", delivered.toString());
+		assertEquals(0, coalescer.size());
+	}
+
+	/**
+	 * The timed flush of a batch flushed explicitly does not flush the
+	 * next batch before its own window has elapsed.
+	 */
+	@Test
+	public void testStaleTimedFlush() throws InterruptedException {
+		NotificationCoalescer coalescer = new NotificationCoalescer(view);
+		coalescer.setWindow(200);
+		coalescer.add(new Notification("price", 1));
+		Thread.sleep(100);
+		coalescer.flush();
+		coalescer.add(new Notification("price", 2));
+		Thread.sleep(150);
+		assertEquals("[1]", delivered.toString());
+		Thread.sleep(250);
+		assertEquals("[1, 2]", delivered.toString());
+	}
+}
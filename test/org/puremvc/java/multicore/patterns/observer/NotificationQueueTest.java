@@ -0,0 +1,128 @@
+/* 
+ PureMVC Java MultiCore Port by Ima OpenSource <opensource@ima.eu>
+ Maintained by Anthony Quinault <anthony.quinault@puremvc.org>
+ PureMVC - Copyright(c) 2006-08 Futurescale, Inc., Some rights reserved. 
+ Your reuse is governed by the Creative Commons Attribution 3.0 License 
+ */
+package org.puremvc.java.multicore.patterns.observer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.junit.Test;
+import org.puremvc.java.multicore.interfaces.INotification;
+import org.puremvc.java.multicore.interfaces.INotifier;
+
+/**
+ * Test the order and the draining of a <code>NotificationQueue</code>.
+ */
+public class NotificationQueueTest {
+
+	private final List<Object> received = new CopyOnWriteArrayList<Object>();
+
+	private final List<Runnable> tasks = new CopyOnWriteArrayList<Runnable>();
+
+	private NotificationQueue queue;
+
+	private final INotifier target = new INotifier() {
+		public void sendNotification(String noteName, Object body, String type) {
+			sendNotification(new Notification(noteName, body, type));
+		}
+
+		public void sendNotification(String noteName, Object body) {
+			sendNotification(noteName, body, null);
+		}
+
+		public void sendNotification(String noteName) {
+			sendNotification(noteName, null, null);
+		}
+
+		public void sendNotification(INotification note) {
+			received.add(note.getBody());
+			// the first note enqueues another one while the queue drains
+			if ("first".equals(note.getBody())) {
+				queue.enqueue(new Notification("note", "second"));
+			}
+		}
+
+		public void initializeNotifier(String key) {
+		}
+	};
+
+	/**
+	 * Notifications are delivered in the order they were enqueued, even
+	 * by an <code>Executor</code> with several threads.
+	 */
+	@Test
+	public void testOrderOnPool() throws Exception {
+		ExecutorService pool = Executors.newFixedThreadPool(4);
+		try {
+			queue = new NotificationQueue(target);
+			queue.setExecutor(pool);
+			for (int i = 0; i < 1000; i++) {
+				queue.enqueue(new Notification("note", Integer.valueOf(i)));
+			}
+			long deadline = System.currentTimeMillis() + 5000;
+			while (received.size() < 1000 && System.currentTimeMillis() < deadline) {
+				Thread.sleep(1);
+			}
+			assertEquals(1000, received.size());
+			for (int i = 0; i < 1000; i++) {
+				assertEquals(Integer.valueOf(i), received.get(i));
+			}
+			assertEquals(0, queue.size());
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+	/**
+	 * A notification enqueued while the queue drains is delivered by the
+	 * same drain, after the ones before it.
+	 */
+	@Test
+	public void testEnqueueDuringDrain() {
+		queue = new NotificationQueue(target);
+		queue.setExecutor(new Executor() {
+			public void execute(Runnable command) {
+				tasks.add(command);
+			}
+		});
+		queue.enqueue(new Notification("note", "first"));
+		queue.enqueue(new Notification("note", "last"));
+		assertEquals(2, queue.size());
+		assertEquals(1, tasks.size());
+		while (!tasks.isEmpty()) {
+			tasks.remove(0).run();
+		}
+		assertEquals("[first, last, second]", received.toString());
+		assertEquals(0, queue.size());
+	}
+
+	/**
+	 * Closing the queue drops what it holds and what is enqueued later.
+	 */
+	@Test
+	public void testClose() {
+		queue = new NotificationQueue(target);
+		queue.setExecutor(new Executor() {
+			public void execute(Runnable command) {
+				tasks.add(command);
+			}
+		});
+		queue.enqueue(new Notification("note", "dropped"));
+		queue.close();
+		queue.enqueue(new Notification("note", "late"));
+		while (!tasks.isEmpty()) {
+			tasks.remove(0).run();
+		}
+		assertTrue(received.isEmpty());
+		assertEquals(0, queue.size());
+	}
+}
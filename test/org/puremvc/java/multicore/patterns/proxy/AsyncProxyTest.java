@@ -0,0 +1,118 @@
+/* 
+ PureMVC Java MultiCore Port by Ima OpenSource <opensource@ima.eu>
+ Maintained by Anthony Quinault <anthony.quinault@puremvc.org>
+ PureMVC - Copyright(c) 2006-08 Futurescale, Inc., Some rights reserved. 
+ Your reuse is governed by the Creative Commons Attribution 3.0 License 
+ */
+package org.puremvc.java.multicore.patterns.proxy;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+/**
+ * Test the loads shared by the callers of an <code>AsyncProxy</code>.
+ */
+public class AsyncProxyTest {
+
+	private final CountDownLatch release = new CountDownLatch(1);
+
+	private final AtomicInteger loads = new AtomicInteger();
+
+	private final AsyncProxy<String, String> proxy = new AsyncProxy<String, String>("AsyncProxyTest") {
+		protected String load(String key) throws Exception {
+			loads.incrementAndGet();
+			release.await();
+			return "value of " + key;
+		}
+	};
+
+	/**
+	 * A caller cancelling its <code>Future</code> does not cancel the load
+	 * another caller is waiting for.
+	 */
+	@Test
+	public void testCancelSharedLoad() throws Exception {
+		Future<String> first = proxy.get("key");
+		Future<String> second = proxy.get("key");
+		assertTrue(first.cancel(true));
+		assertTrue(first.isCancelled());
+		assertFalse(second.isDone());
+		release.countDown();
+		assertEquals("value of key", second.get());
+		assertEquals(1, loads.get());
+		try {
+			first.get();
+			fail("cancelled future returned a value");
+		} catch (CancellationException e) {
+			// expected
+		}
+	}
+
+	/**
+	 * Cancelling a <code>Future</code> wakes the thread blocked in its
+	 * <code>get</code>, while the load is still running.
+	 */
+	@Test
+	public void testCancelWakesBlockedGet() throws Exception {
+		final Future<String> future = proxy.get("key");
+		final AtomicReference<Throwable> thrown = new AtomicReference<Throwable>();
+		Thread waiter = new Thread() {
+			public void run() {
+				try {
+					future.get();
+				} catch (Throwable t) {
+					thrown.set(t);
+				}
+			}
+		};
+		waiter.start();
+		while (waiter.getState() != Thread.State.WAITING) {
+			Thread.sleep(1);
+		}
+		assertTrue(future.cancel(false));
+		waiter.join(5000);
+		assertFalse(waiter.isAlive());
+		assertTrue(thrown.get() instanceof CancellationException);
+		assertEquals(1, proxy.getInFlightCount());
+		release.countDown();
+	}
+
+	/**
+	 * A bounded <code>get</code> times out while the load is running and
+	 * returns the value once it completes.
+	 */
+	@Test
+	public void testTimedGet() throws Exception {
+		Future<String> future = proxy.get("key");
+		try {
+			future.get(10, TimeUnit.MILLISECONDS);
+			fail("get returned before the load completed");
+		} catch (TimeoutException e) {
+			// expected
+		}
+		release.countDown();
+		assertEquals("value of key", future.get(5, TimeUnit.SECONDS));
+	}
+
+	@Test
+	public void testNullKey() {
+		try {
+			proxy.get(null);
+			fail("null key accepted");
+		} catch (IllegalArgumentException e) {
+			assertEquals("Key must not be null", e.getMessage());
+		}
+	}
+}
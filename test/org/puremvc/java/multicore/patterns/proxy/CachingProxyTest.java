@@ -0,0 +1,90 @@
+/* 
+ PureMVC Java MultiCore Port by Ima OpenSource <opensource@ima.eu>
+ Maintained by Anthony Quinault <anthony.quinault@puremvc.org>
+ PureMVC - Copyright(c) 2006-08 Futurescale, Inc., Some rights reserved. 
+ Your reuse is governed by the Creative Commons Attribution 3.0 License 
+ */
+package org.puremvc.java.multicore.patterns.proxy;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+/**
+ * Test the eviction policies of a <code>CachingProxy</code>.
+ */
+public class CachingProxyTest {
+
+	private final List<String> evicted = new ArrayList<String>();
+
+	private final CachingProxy<String, String> cache = new CachingProxy<String, String>("CachingProxyTest", 3) {
+		protected long weigh(String key, String value) {
+			return value.length();
+		}
+
+		protected void onEvict(String key, String value) {
+			evicted.add(key);
+		}
+	};
+
+	/**
+	 * The least recently used entry is evicted first, a lookup making an
+	 * entry the most recently used.
+	 */
+	@Test
+	public void testLeastRecentlyUsed() {
+		cache.put("a", "1");
+		cache.put("b", "2");
+		cache.put("c", "3");
+		assertEquals("1", cache.get("a"));
+		cache.put("d", "4");
+		assertEquals("[b]", evicted.toString());
+		assertNull(cache.get("b"));
+		assertEquals(3, cache.size());
+		assertEquals(1, cache.getEvictionCount());
+		assertEquals(1, cache.getHitCount());
+		assertEquals(1, cache.getMissCount());
+	}
+
+	/**
+	 * Entries are evicted until the total weight fits, and removing an
+	 * entry gives its weight back without counting as an eviction.
+	 */
+	@Test
+	public void testMaxWeight() {
+		cache.setMaxWeight(10);
+		cache.put("a", "xxxx");
+		cache.put("b", "xxxx");
+		assertEquals(8, cache.getWeight());
+		cache.put("c", "xxxxxxx");
+		assertEquals("[a, b]", evicted.toString());
+		assertEquals(7, cache.getWeight());
+		cache.remove("c");
+		assertEquals(0, cache.getWeight());
+		assertEquals(2, cache.getEvictionCount());
+	}
+
+	/**
+	 * Entries expire their time to live after they were put, and are
+	 * evicted by a lookup or by <code>purgeExpired</code>.
+	 */
+	@Test
+	public void testTimeToLive() throws Exception {
+		cache.setTimeToLive(20);
+		cache.put("a", "1");
+		cache.put("b", "2");
+		assertEquals("1", cache.get("a"));
+		Thread.sleep(50);
+		assertNull(cache.get("a"));
+		assertEquals("[a]", evicted.toString());
+		assertEquals(1, cache.size());
+		cache.purgeExpired();
+		assertEquals("[a, b]", evicted.toString());
+		assertEquals(0, cache.size());
+		assertEquals(0, cache.getWeight());
+	}
+}
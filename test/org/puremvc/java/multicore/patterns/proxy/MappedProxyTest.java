@@ -0,0 +1,115 @@
+/* 
+ PureMVC Java MultiCore Port by Ima OpenSource <opensource@ima.eu>
+ Maintained by Anthony Quinault <anthony.quinault@puremvc.org>
+ PureMVC - Copyright(c) 2006-08 Futurescale, Inc., Some rights reserved. 
+ Your reuse is governed by the Creative Commons Attribution 3.0 License 
+ */
+package org.puremvc.java.multicore.patterns.proxy;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.puremvc.java.multicore.core.model.Model;
+
+/**
+ * Test the resizing and the release of a file-backed <code>MappedProxy</code>.
+ */
+public class MappedProxyTest {
+
+	private File file;
+
+	private MappedProxy proxy;
+
+	@Before
+	public void setUp() throws Exception {
+		file = File.createTempFile("MappedProxyTest", ".dat");
+		proxy = new MappedProxy("MappedProxyTest", file, 8, true);
+	}
+
+	@After
+	public void tearDown() {
+		proxy.onRemove();
+		file.delete();
+	}
+
+	@Test
+	public void testGrow() throws Exception {
+		proxy.setRecordCount(4);
+		MappedProxy.Record record = proxy.newRecord();
+		record.moveTo(3).putLong(0, 42L);
+		proxy.setRecordCount(1000);
+		assertEquals(1000, proxy.getRecordCount());
+		assertEquals(42L, record.moveTo(3).getLong(0));
+		assertEquals(8000, file.length());
+	}
+
+	/**
+	 * Shrinking is refused, leaving the mapping and the file as they were.
+	 */
+	@Test
+	public void testShrink() throws Exception {
+		proxy.setRecordCount(4);
+		try {
+			proxy.setRecordCount(2);
+			fail("proxy shrunk");
+		} catch (IllegalArgumentException e) {
+			assertEquals(4, proxy.getRecordCount());
+		}
+		assertEquals(32, file.length());
+		proxy.newRecord().moveTo(3).putLong(0, 1L);
+	}
+
+	/**
+	 * Removing the proxy from its <code>Model</code> writes the records
+	 * and closes the file.
+	 */
+	@Test
+	public void testRemoveProxy() throws Exception {
+		Model model = Model.getInstance("MappedProxyTest");
+		try {
+			model.registerProxy(proxy);
+			proxy.setRecordCount(2);
+			proxy.newRecord().moveTo(1).putLong(0, 42L);
+			assertSame(proxy, model.removeProxy("MappedProxyTest"));
+			assertClosed();
+		} finally {
+			Model.removeModel("MappedProxyTest");
+		}
+	}
+
+	/**
+	 * Removing the <code>Model</code> of a Core removes its proxies.
+	 */
+	@Test
+	public void testRemoveModel() throws Exception {
+		Model.getInstance("MappedProxyTest").registerProxy(proxy);
+		proxy.setRecordCount(2);
+		proxy.newRecord().moveTo(1).putLong(0, 42L);
+		Model.removeModel("MappedProxyTest");
+		assertClosed();
+	}
+
+	private void assertClosed() throws Exception {
+		try {
+			proxy.setRecordCount(4);
+			fail("file still open");
+		} catch (IOException e) {
+			// expected
+		}
+		RandomAccessFile written = new RandomAccessFile(file, "r");
+		try {
+			written.seek(8);
+			assertEquals(42L, written.readLong());
+		} finally {
+			written.close();
+		}
+	}
+}
@@ -0,0 +1,34 @@
+/* 
+ PureMVC Java MultiCore Port by Ima OpenSource <opensource@ima.eu>
+ Maintained by Anthony Quinault <anthony.quinault@puremvc.org>
+ PureMVC - Copyright(c) 2006-08 Futurescale, Inc., Some rights reserved. 
+ Your reuse is governed by the Creative Commons Attribution 3.0 License 
+ */
+package org.puremvc.java.multicore.patterns.proxy;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+/**
+ * Test the publications of a <code>VersionedProxy</code>.
+ */
+public class VersionedProxyTest {
+
+	/**
+	 * A proxy not registered with a Core yet publishes without notifying.
+	 */
+	@Test
+	public void testPublishUnregistered() {
+		VersionedProxy<String> proxy = new VersionedProxy<String>("VersionedProxyTest", "initial");
+		proxy.setChangeNotification("changed");
+		assertEquals(1, proxy.publish("first"));
+		proxy.setData("second");
+		assertTrue(proxy.compareAndPublish(2, "third"));
+		assertFalse(proxy.compareAndPublish(2, "stale"));
+		assertEquals(3, proxy.getVersion());
+		assertEquals("third", proxy.getData());
+	}
+}